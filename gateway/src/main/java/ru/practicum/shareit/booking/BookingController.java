@@ -6,6 +6,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareit.booking.dto.BookingApproveDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 
@@ -23,45 +26,72 @@ public class BookingController {
     private static final String REQUEST_HEADER = "X-Sharer-User-Id";
 
     @PostMapping
-    public ResponseEntity<Object> create(@RequestHeader(REQUEST_HEADER) long userId,
-                                         @RequestBody @Valid BookingDto requestDto) {
+    public Mono<ResponseEntity<Object>> create(@RequestHeader(REQUEST_HEADER) long userId,
+                                               @RequestBody @Valid BookingDto requestDto) {
         log.info("Creating booking {}, userId={}", requestDto, userId);
         return bookingClient.bookItem(userId, requestDto);
     }
 
     @GetMapping("/{bookingId}")
-    public ResponseEntity<Object> getById(@RequestHeader(REQUEST_HEADER) long userId,
-                                          @PathVariable Long bookingId) {
+    public Mono<ResponseEntity<Object>> getById(@RequestHeader(REQUEST_HEADER) long userId,
+                                                @PathVariable Long bookingId) {
         log.info("Get booking {}, userId={}", bookingId, userId);
         return bookingClient.getBooking(userId, bookingId);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getAll(@RequestHeader(REQUEST_HEADER) Long userId,
-                                         @RequestParam(name = "state", defaultValue = "ALL") String stateParam,
-                                         @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                         @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+    public Mono<ResponseEntity<Object>> getAll(@RequestHeader(REQUEST_HEADER) Long userId,
+                                               @RequestParam(name = "state", defaultValue = "ALL") String stateParam,
+                                               @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
+                                               @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                               @RequestParam(name = "cursor", required = false) String cursor) {
         BookingState state = BookingState.from(stateParam)
                 .orElseThrow(() -> new IllegalArgumentException("Unknown state: " + stateParam));
+        if (cursor != null) {
+            log.info("Get booking with state {}, userId={}, cursor={}, size={}", stateParam, userId, cursor, size);
+            return bookingClient.getBookings(userId, state, cursor, size);
+        }
         log.info("Get booking with state {}, userId={}, from={}, size={}", stateParam, userId, from, size);
         return bookingClient.getBookings(userId, state, from, size);
     }
 
     @GetMapping("/owner")
-    public ResponseEntity<Object> getAllByOwner(@RequestHeader(REQUEST_HEADER) Long userId,
-                                                @RequestParam(name = "state", defaultValue = "ALL") String stateParam,
-                                                @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                                @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+    public Mono<ResponseEntity<Object>> getAllByOwner(@RequestHeader(REQUEST_HEADER) Long userId,
+                                                      @RequestParam(name = "state", defaultValue = "ALL") String stateParam,
+                                                      @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
+                                                      @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                                      @RequestParam(name = "cursor", required = false) String cursor) {
         BookingState state = BookingState.from(stateParam).orElseThrow(
                 () -> new IllegalArgumentException("Unknown state: " + stateParam));
+        if (cursor != null) {
+            log.info("Get owner booking with state {}, userId={}, cursor={}, size={}", stateParam, userId, cursor, size);
+            return bookingClient.getAllByOwner(userId, state, cursor, size);
+        }
         log.info("Get booking with state {}, userId={}, from={}, size={}", stateParam, userId, from, size);
         return bookingClient.getAllByOwner(userId, state, from, size);
     }
 
+    @GetMapping("/owner/export")
+    public ResponseEntity<StreamingResponseBody> exportByOwner(@RequestHeader(REQUEST_HEADER) long userId,
+                                                               @RequestParam(name = "state", defaultValue = "ALL")
+                                                               String stateParam) {
+        BookingState state = BookingState.from(stateParam).orElseThrow(
+                () -> new IllegalArgumentException("Unknown state: " + stateParam));
+        log.info("Export owner bookings with state {}, userId={}", stateParam, userId);
+        return bookingClient.exportByOwner(userId, state);
+    }
+
+    @PatchMapping("/approve")
+    public Mono<ResponseEntity<Object>> updateAll(@RequestHeader(REQUEST_HEADER) long userId,
+                                                  @RequestBody @Valid BookingApproveDto approveDto) {
+        log.info("Approve bookings {}, approved={}, userId={}", approveDto.getIds(), approveDto.getApproved(), userId);
+        return bookingClient.updateApproveAll(userId, approveDto);
+    }
+
     @PatchMapping("/{bookingId}")
-    public ResponseEntity<Object> update(@RequestHeader(REQUEST_HEADER) long userId,
-                                         @PathVariable Long bookingId,
-                                         @RequestParam boolean approved) {
+    public Mono<ResponseEntity<Object>> update(@RequestHeader(REQUEST_HEADER) long userId,
+                                               @PathVariable Long bookingId,
+                                               @RequestParam boolean approved) {
         return bookingClient.updateApprove(bookingId, approved, userId);
     }
 }
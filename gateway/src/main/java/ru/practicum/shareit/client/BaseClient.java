@@ -1,92 +1,227 @@
 package ru.practicum.shareit.client;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.*;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.net.URI;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 
 public class BaseClient {
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of("connection", "keep-alive", "transfer-encoding",
+            "te", "trailer", "upgrade", "proxy-authenticate", "proxy-authorization", "content-length");
     protected final RestTemplate rest;
+    @Nullable
+    protected final WebClient web;
+    @Nullable
+    protected final ResponseCache cache;
+    @Nullable
+    protected final RequestCoalescer coalescer;
 
     public BaseClient(RestTemplate rest) {
+        this(rest, null);
+    }
+
+    public BaseClient(RestTemplate rest, @Nullable WebClient web) {
+        this(rest, web, null, null);
+    }
+
+    public BaseClient(RestTemplate rest, @Nullable WebClient web, @Nullable RequestCoalescer coalescer) {
+        this(rest, web, null, coalescer);
+    }
+
+    public BaseClient(RestTemplate rest, @Nullable WebClient web, @Nullable ResponseCache cache,
+                      @Nullable RequestCoalescer coalescer) {
         this.rest = rest;
+        this.web = web;
+        this.cache = cache;
+        this.coalescer = coalescer;
+    }
+
+    @Nullable
+    protected static WebClient webClient(ObjectProvider<WebClient> webClient, String baseUrl) {
+        WebClient client = webClient.getIfAvailable();
+        return client != null ? client.mutate().uriBuilderFactory(new DefaultUriBuilderFactory(baseUrl)).build() : null;
     }
 
-    protected ResponseEntity<Object> get(String path) {
+    protected Mono<ResponseEntity<Object>> get(String path) {
         return get(path, null, null);
     }
 
-    protected ResponseEntity<Object> get(String path, long userId) {
+    protected Mono<ResponseEntity<Object>> get(String path, long userId) {
         return get(path, userId, null);
     }
 
-    protected ResponseEntity<Object> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
-        return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null);
+    protected Mono<ResponseEntity<Object>> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
+        return coalesce(requestKey(path, userId, parameters, true),
+                () -> makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null, null));
     }
 
-    protected <T> ResponseEntity<Object> post(String path, T body) {
+    protected Mono<ResponseEntity<Object>> getCached(String path, long userId, boolean perViewer) {
+        return getCached(path, userId, null, perViewer);
+    }
+
+    protected Mono<ResponseEntity<Object>> getCached(String path, long userId, @Nullable Map<String, Object> parameters, boolean perViewer) {
+        if (cache == null) {
+            return get(path, userId, parameters);
+        }
+        String key = requestKey(path, userId, parameters, perViewer);
+        return coalesce(key, () -> Mono.defer(() -> {
+            ResponseCache.CachedResponse cached = cache.get(key);
+            ResponseEntity<Object> fresh = cache.serve(cached);
+            if (fresh != null) {
+                return Mono.just(fresh);
+            }
+            HttpHeaders conditional = new HttpHeaders();
+            if (cached != null) {
+                conditional.setIfNoneMatch(cached.getEtag());
+            }
+            return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null, conditional)
+                    .map(response -> cache.update(key, cached, response));
+        }));
+    }
+
+    protected <T> Mono<ResponseEntity<Object>> post(String path, T body) {
         return post(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, long userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> post(String path, long userId, T body) {
         return post(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
-        return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body);
+    protected <T> Mono<ResponseEntity<Object>> post(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+        return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body, null);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> put(String path, long userId, T body) {
         return put(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId, @Nullable Map<String, Object> parameters, T body) {
-        return makeAndSendRequest(HttpMethod.PUT, path, userId, parameters, body);
+    protected <T> Mono<ResponseEntity<Object>> put(String path, long userId, @Nullable Map<String, Object> parameters, T body) {
+        return makeAndSendRequest(HttpMethod.PUT, path, userId, parameters, body, null);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, T body) {
         return patch(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, long userId) {
         return patch(path, userId, null, null);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, long userId, T body) {
         return patch(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
-        return makeAndSendRequest(HttpMethod.PATCH, path, userId, parameters, body);
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+        return makeAndSendRequest(HttpMethod.PATCH, path, userId, parameters, body, null);
     }
 
-    protected ResponseEntity<Object> delete(String path) {
+    protected Mono<ResponseEntity<Object>> delete(String path) {
         return delete(path, null, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, long userId) {
+    protected Mono<ResponseEntity<Object>> delete(String path, long userId) {
         return delete(path, userId, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
-        return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
+    protected Mono<ResponseEntity<Object>> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
+        return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null, null);
     }
 
-    private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
-        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
+    protected ResponseEntity<StreamingResponseBody> stream(String path, long userId, Map<String, Object> parameters) {
+        URI uri = rest.getUriTemplateHandler().expand(path, parameters);
+        ClientHttpResponse response;
+        try {
+            ClientHttpRequest request = rest.getRequestFactory().createRequest(uri, HttpMethod.GET);
+            request.getHeaders().addAll(defaultHeaders(userId));
+            request.getHeaders().setAccept(List.of(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_JSON));
+            response = request.execute();
+        } catch (IOException e) {
+            throw new ResourceAccessException("I/O error on GET request for \"" + uri + "\": " + e.getMessage(), e);
+        }
+        try {
+            ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getRawStatusCode())
+                    .headers(passthroughHeaders(response.getHeaders()));
+            if (!HttpStatus.Series.SUCCESSFUL.equals(HttpStatus.Series.resolve(response.getRawStatusCode()))) {
+                byte[] error = StreamUtils.copyToByteArray(response.getBody());
+                response.close();
+                return responseBuilder.body(out -> out.write(error));
+            }
+            return responseBuilder.body(out -> {
+                try (response) {
+                    StreamUtils.copy(response.getBody(), out);
+                }
+            });
+        } catch (IOException e) {
+            response.close();
+            throw new ResourceAccessException("I/O error on GET request for \"" + uri + "\": " + e.getMessage(), e);
+        }
+    }
+
+    private Mono<ResponseEntity<Object>> coalesce(String key, Supplier<Mono<ResponseEntity<Object>>> request) {
+        return coalescer != null ? coalescer.coalesce(key, request) : request.get();
+    }
+
+    private String requestKey(String path, @Nullable Long userId, @Nullable Map<String, Object> parameters, boolean perViewer) {
+        URI uri = rest.getUriTemplateHandler().expand(path, parameters != null ? parameters : Map.of());
+        return perViewer && userId != null ? uri + " " + userId : uri.toString();
+    }
 
-        ResponseEntity<Object> shareitServerResponse;
+    private <T> Mono<ResponseEntity<Object>> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body, @Nullable HttpHeaders extraHeaders) {
+        HttpHeaders headers = defaultHeaders(userId);
+        if (extraHeaders != null) {
+            headers.addAll(extraHeaders);
+        }
+        if (web != null) {
+            return exchange(method, path, headers, parameters, body);
+        }
+        return Mono.fromCallable(() -> exchangeBlocking(method, path, headers, parameters, body));
+    }
+
+    private <T> Mono<ResponseEntity<Object>> exchange(HttpMethod method, String path, HttpHeaders headers, @Nullable Map<String, Object> parameters, @Nullable T body) {
+        WebClient.RequestBodySpec request = web.method(method)
+                .uri(path, parameters != null ? parameters : Map.of())
+                .headers(requestHeaders -> requestHeaders.addAll(headers));
+        WebClient.RequestHeadersSpec<?> requestWithBody = body != null ? request.bodyValue(body) : request;
+        return requestWithBody.exchangeToMono(response -> {
+            ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.rawStatusCode())
+                    .headers(passthroughHeaders(response.headers().asHttpHeaders()));
+            return response.bodyToMono(byte[].class)
+                    .<ResponseEntity<Object>>map(responseBuilder::body)
+                    .defaultIfEmpty(responseBuilder.build());
+        });
+    }
+
+    private <T> ResponseEntity<Object> exchangeBlocking(HttpMethod method, String path, HttpHeaders headers, @Nullable Map<String, Object> parameters, @Nullable T body) {
+        HttpEntity<T> requestEntity = new HttpEntity<>(body, headers);
+
+        ResponseEntity<byte[]> shareitServerResponse;
         try {
             if (parameters != null) {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class, parameters);
+                shareitServerResponse = rest.exchange(path, method, requestEntity, byte[].class, parameters);
             } else {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class);
+                shareitServerResponse = rest.exchange(path, method, requestEntity, byte[].class);
             }
         } catch (HttpStatusCodeException e) {
-            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
+            return ResponseEntity.status(e.getStatusCode())
+                    .headers(passthroughHeaders(e.getResponseHeaders()))
+                    .body(e.getResponseBodyAsByteArray());
         }
         return prepareGatewayResponse(shareitServerResponse);
     }
@@ -101,12 +236,21 @@ public class BaseClient {
         return headers;
     }
 
-    private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<Object> response) {
-        if (response.getStatusCode().is2xxSuccessful()) {
-            return response;
+    private static HttpHeaders passthroughHeaders(@Nullable HttpHeaders headers) {
+        HttpHeaders passthrough = new HttpHeaders();
+        if (headers != null) {
+            headers.forEach((name, values) -> {
+                if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                    passthrough.addAll(name, values);
+                }
+            });
         }
+        return passthrough;
+    }
 
-        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCode());
+    private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<byte[]> response) {
+        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCode())
+                .headers(passthroughHeaders(response.getHeaders()));
 
         if (response.hasBody()) {
             return responseBuilder.body(response.getBody());
@@ -0,0 +1,51 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+@Component
+public class RequestCoalescer {
+    private final Map<String, Mono<ResponseEntity<Object>>> inFlight = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final Counter forwarded;
+    private final Counter coalesced;
+
+    public RequestCoalescer(@Value("${shareit-server.coalescing.enabled:true}") boolean enabled,
+                            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.forwarded = Counter.builder("shareit-server.coalescing.requests")
+                .tag("result", "forwarded")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("shareit-server.coalescing.requests")
+                .tag("result", "coalesced")
+                .register(meterRegistry);
+        Gauge.builder("shareit-server.coalescing.in-flight", inFlight, Map::size)
+                .register(meterRegistry);
+    }
+
+    Mono<ResponseEntity<Object>> coalesce(String key, Supplier<Mono<ResponseEntity<Object>>> request) {
+        if (!enabled) {
+            return request.get();
+        }
+        return Mono.defer(() -> {
+            boolean[] leader = new boolean[1];
+            Mono<ResponseEntity<Object>> flight = inFlight.computeIfAbsent(key, k -> {
+                leader[0] = true;
+                return Mono.defer(request)
+                        .doFinally(signal -> inFlight.remove(k))
+                        .cache();
+            });
+            (leader[0] ? forwarded : coalesced).increment();
+            return flight;
+        });
+    }
+}
@@ -0,0 +1,142 @@
+package ru.practicum.shareit.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Component
+public class ResponseCache {
+    private static final String CACHE_NAME = "shareit-server.responses";
+    private final Cache<String, CachedResponse> cache;
+    private final long freshForNanos;
+    private final Counter notModified;
+    private final Counter modified;
+    private final Counter servedFromCache;
+    private final Counter servedFromUpstream;
+
+    public ResponseCache(@Value("${shareit-server.response-cache.max-size:64MB}") DataSize maxSize,
+                         @Value("${shareit-server.response-cache.fresh-for:0s}") Duration freshFor,
+                         MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String key, CachedResponse response) -> response.weight(key))
+                .recordStats()
+                .build();
+        this.freshForNanos = freshFor.toNanos();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        this.servedFromCache = Counter.builder("cache.responses")
+                .tag("cache", CACHE_NAME)
+                .tag("source", "cache")
+                .register(meterRegistry);
+        this.servedFromUpstream = Counter.builder("cache.responses")
+                .tag("cache", CACHE_NAME)
+                .tag("source", "upstream")
+                .register(meterRegistry);
+        Gauge.builder("cache.hit.ratio", this, ResponseCache::hitRatio)
+                .tag("cache", CACHE_NAME)
+                .register(meterRegistry);
+        Gauge.builder("cache.size.bytes", cache, c -> c.policy().eviction()
+                        .map(eviction -> eviction.weightedSize().orElse(0))
+                        .orElse(0L))
+                .tag("cache", CACHE_NAME)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.notModified = Counter.builder("cache.revalidations")
+                .tag("cache", CACHE_NAME)
+                .tag("result", "not_modified")
+                .register(meterRegistry);
+        this.modified = Counter.builder("cache.revalidations")
+                .tag("cache", CACHE_NAME)
+                .tag("result", "modified")
+                .register(meterRegistry);
+    }
+
+    @Nullable
+    CachedResponse get(String key) {
+        return cache.getIfPresent(key);
+    }
+
+    @Nullable
+    ResponseEntity<Object> serve(@Nullable CachedResponse cached) {
+        if (cached != null && System.nanoTime() - cached.validatedAt < freshForNanos) {
+            servedFromCache.increment();
+            return cached.toResponseEntity();
+        }
+        servedFromUpstream.increment();
+        return null;
+    }
+
+    double hitRatio() {
+        double served = servedFromCache.count() + notModified.count();
+        double total = servedFromCache.count() + servedFromUpstream.count();
+        return total == 0 ? 0 : served / total;
+    }
+
+    ResponseEntity<Object> update(String key, @Nullable CachedResponse cached, ResponseEntity<Object> response) {
+        if (cached != null && response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+            notModified.increment();
+            cache.put(key, cached.revalidated());
+            return cached.toResponseEntity();
+        }
+        if (cached != null) {
+            modified.increment();
+        }
+        String etag = response.getHeaders().getETag();
+        if (response.getStatusCode() == HttpStatus.OK && etag != null && response.getBody() instanceof byte[]) {
+            cache.put(key, new CachedResponse(etag, response.getHeaders(), (byte[]) response.getBody(),
+                    System.nanoTime()));
+        } else if (cached != null) {
+            cache.invalidate(key);
+        }
+        return response;
+    }
+
+    static class CachedResponse {
+        private final String etag;
+        private final HttpHeaders headers;
+        private final byte[] body;
+        private final long validatedAt;
+
+        private CachedResponse(String etag, HttpHeaders headers, byte[] body, long validatedAt) {
+            this.etag = etag;
+            this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+            this.body = body;
+            this.validatedAt = validatedAt;
+        }
+
+        String getEtag() {
+            return etag;
+        }
+
+        private CachedResponse revalidated() {
+            return new CachedResponse(etag, headers, body, System.nanoTime());
+        }
+
+        ResponseEntity<Object> toResponseEntity() {
+            return ResponseEntity.ok().headers(headers).body(body);
+        }
+
+        private int weight(String key) {
+            int weight = body.length + 2 * key.length();
+            for (var header : headers.entrySet()) {
+                weight += 2 * header.getKey().length();
+                for (String value : header.getValue()) {
+                    weight += 2 * value.length();
+                }
+            }
+            return weight;
+        }
+    }
+}
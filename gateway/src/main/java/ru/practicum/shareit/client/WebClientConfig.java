@@ -0,0 +1,47 @@
+package ru.practicum.shareit.client;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(name = "shareit-server.client.mode", havingValue = "reactive")
+public class WebClientConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider shareitServerConnectionProvider(
+            @Value("${shareit-server.http-client.max-total:200}") int maxTotal,
+            @Value("${shareit-server.http-client.connection-request-timeout:1s}") Duration connectionRequestTimeout,
+            @Value("${shareit-server.http-client.keep-alive:30s}") Duration keepAlive) {
+        return ConnectionProvider.builder("shareit-server")
+                .maxConnections(maxTotal)
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(connectionRequestTimeout)
+                .maxIdleTime(keepAlive)
+                .evictInBackground(keepAlive)
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public WebClient shareitServerWebClient(
+            WebClient.Builder builder,
+            ConnectionProvider shareitServerConnectionProvider,
+            @Value("${shareit-server.http-client.connect-timeout:2s}") Duration connectTimeout,
+            @Value("${shareit-server.http-client.read-timeout:30s}") Duration readTimeout) {
+        HttpClient httpClient = HttpClient.create(shareitServerConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(readTimeout);
+        return builder
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+}
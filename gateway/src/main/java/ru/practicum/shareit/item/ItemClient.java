@@ -1,16 +1,23 @@
 package ru.practicum.shareit.item;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.RequestCoalescer;
+import ru.practicum.shareit.client.ResponseCache;
 import ru.practicum.shareit.item.dto.CommentFromRequestDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -18,24 +25,35 @@ public class ItemClient extends BaseClient {
     private static final String API_PREFIX = "/items";
 
     @Autowired
-    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                      ClientHttpRequestFactory requestFactory,
+                      ObjectProvider<WebClient> webClient,
+                      ResponseCache responseCache,
+                      RequestCoalescer requestCoalescer) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                webClient(webClient, serverUrl + API_PREFIX),
+                responseCache,
+                requestCoalescer
         );
     }
 
-    public ResponseEntity<Object> create(ItemDto itemDto, long userId) {
+    public Mono<ResponseEntity<Object>> create(ItemDto itemDto, long userId) {
         return post("", userId, itemDto);
     }
 
-    public ResponseEntity<Object> update(ItemDto itemDto, long userId, long itemId) {
+    public Mono<ResponseEntity<Object>> createAll(List<ItemDto> items, long userId) {
+        return post("/batch", userId, items);
+    }
+
+    public Mono<ResponseEntity<Object>> update(ItemDto itemDto, long userId, long itemId) {
         return patch("/" + itemId, userId, itemDto);
     }
 
-    public ResponseEntity<Object> getAll(long userId, Integer from, Integer size) {
+    public Mono<ResponseEntity<Object>> getAll(long userId, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
@@ -43,20 +61,36 @@ public class ItemClient extends BaseClient {
         return get("/?from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> getById(long userId, long itemId) {
-        return get("/" + itemId, userId);
+    public Mono<ResponseEntity<Object>> getAll(long userId, String cursor, Integer size) {
+        Map<String, Object> parameters = Map.of(
+                "cursor", cursor,
+                "size", size
+        );
+        return get("/?cursor={cursor}&size={size}", userId, parameters);
+    }
+
+    public Mono<ResponseEntity<Object>> getById(long userId, long itemId) {
+        return getCached("/" + itemId, userId, true);
     }
 
-    public ResponseEntity<Object> search(String text, Integer from, Integer size, long userId) {
+    public Mono<ResponseEntity<Object>> search(String text, Integer from, Integer size, long userId) {
         Map<String, Object> parameters = Map.of(
                 "text", text,
                 "from", from,
                 "size", size
         );
-        return get("/search?text={text}&from={from}&size={size}", userId, parameters);
+        return getCached("/search?text={text}&from={from}&size={size}", userId, parameters, false);
+    }
+
+    public Mono<ResponseEntity<Object>> getAvailability(long userId, long itemId, LocalDateTime from, LocalDateTime to) {
+        Map<String, Object> parameters = Map.of(
+                "from", from,
+                "to", to
+        );
+        return get("/" + itemId + "/availability?from={from}&to={to}", userId, parameters);
     }
 
-    public ResponseEntity<Object> createComment(long userId, long itemId, CommentFromRequestDto comment) {
+    public Mono<ResponseEntity<Object>> createComment(long userId, long itemId, CommentFromRequestDto comment) {
         return post("/" + itemId + "/comment", userId, comment);
     }
 }
@@ -1,16 +1,22 @@
 package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.item.dto.CommentFromRequestDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
+import java.time.LocalDateTime;
+import java.util.List;
 
 @Controller
 @RequestMapping(path = "items")
@@ -21,43 +27,61 @@ public class ItemController {
     private static final String REQUEST_HEADER = "X-Sharer-User-Id";
 
     @PostMapping
-    public ResponseEntity<Object> create(@RequestHeader(REQUEST_HEADER) Long userId,
-                                         @Valid @RequestBody ItemDto itemDto) {
+    public Mono<ResponseEntity<Object>> create(@RequestHeader(REQUEST_HEADER) Long userId,
+                                               @Valid @RequestBody ItemDto itemDto) {
         return itemClient.create(itemDto, userId);
     }
 
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<Object>> createAll(@RequestHeader(REQUEST_HEADER) Long userId,
+                                                  @RequestBody @Size(min = 1, max = 1000) List<@Valid ItemDto> items) {
+        return itemClient.createAll(items, userId);
+    }
+
     @PatchMapping("{id}")
-    public ResponseEntity<Object> update(@RequestHeader(REQUEST_HEADER) Long userId,
-                                         @RequestBody ItemDto itemDto,
-                                         @PathVariable("id") long itemId) {
+    public Mono<ResponseEntity<Object>> update(@RequestHeader(REQUEST_HEADER) Long userId,
+                                               @RequestBody ItemDto itemDto,
+                                               @PathVariable("id") long itemId) {
         return itemClient.update(itemDto, userId, itemId);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getAll(@RequestHeader(REQUEST_HEADER) Long userId,
-                                         @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                         @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+    public Mono<ResponseEntity<Object>> getAll(@RequestHeader(REQUEST_HEADER) Long userId,
+                                               @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
+                                               @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                               @RequestParam(name = "cursor", required = false) String cursor) {
+        if (cursor != null) {
+            return itemClient.getAll(userId, cursor, size);
+        }
         return itemClient.getAll(userId, from, size);
     }
 
     @GetMapping("{id}")
-    public ResponseEntity<Object> getById(@RequestHeader(REQUEST_HEADER) Long userId,
-                                          @PathVariable("id") long itemId) {
+    public Mono<ResponseEntity<Object>> getById(@RequestHeader(REQUEST_HEADER) Long userId,
+                                                @PathVariable("id") long itemId) {
         return itemClient.getById(userId, itemId);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<Object> search(@RequestHeader(REQUEST_HEADER) Long userId,
-                                         @RequestParam String text,
-                                         @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                         @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+    public Mono<ResponseEntity<Object>> search(@RequestHeader(REQUEST_HEADER) Long userId,
+                                               @RequestParam String text,
+                                               @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
+                                               @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
         return itemClient.search(text, from, size, userId);
     }
 
+    @GetMapping("{id}/availability")
+    public Mono<ResponseEntity<Object>> getAvailability(@RequestHeader(REQUEST_HEADER) Long userId,
+                                                        @PathVariable("id") long itemId,
+                                                        @RequestParam @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime from,
+                                                        @RequestParam @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime to) {
+        return itemClient.getAvailability(userId, itemId, from, to);
+    }
+
     @PostMapping("/{id}/comment")
-    public ResponseEntity<Object> createComment(@RequestHeader(REQUEST_HEADER) Long userId,
-                                                @PathVariable("id") long itemId,
-                                                @Valid @RequestBody CommentFromRequestDto comment) {
+    public Mono<ResponseEntity<Object>> createComment(@RequestHeader(REQUEST_HEADER) Long userId,
+                                                      @PathVariable("id") long itemId,
+                                                      @Valid @RequestBody CommentFromRequestDto comment) {
         return itemClient.createComment(userId, itemId, comment);
     }
 }
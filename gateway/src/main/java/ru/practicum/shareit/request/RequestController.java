@@ -5,6 +5,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
 import javax.validation.Valid;
@@ -20,26 +21,30 @@ public class RequestController {
     private static final String REQUEST_HEADER = "X-Sharer-User-Id";
 
     @PostMapping
-    public ResponseEntity<Object> create(@RequestHeader(REQUEST_HEADER) Long userId,
-                                         @Valid @RequestBody ItemRequestDto itemRequestDto) {
+    public Mono<ResponseEntity<Object>> create(@RequestHeader(REQUEST_HEADER) Long userId,
+                                               @Valid @RequestBody ItemRequestDto itemRequestDto) {
         return requestClient.create(userId, itemRequestDto);
     }
 
     @GetMapping("{requestId}")
-    public ResponseEntity<Object> getById(@RequestHeader(REQUEST_HEADER) Long userId,
-                                          @PathVariable Long requestId) {
+    public Mono<ResponseEntity<Object>> getById(@RequestHeader(REQUEST_HEADER) Long userId,
+                                                @PathVariable Long requestId) {
         return requestClient.getById(requestId, userId);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getAllByRequestor(@RequestHeader(REQUEST_HEADER) Long userId) {
+    public Mono<ResponseEntity<Object>> getAllByRequestor(@RequestHeader(REQUEST_HEADER) Long userId) {
         return requestClient.getAllByRequestor(userId);
     }
 
     @GetMapping("/all")
-    public ResponseEntity<Object> getAll(@RequestHeader(REQUEST_HEADER) Long userId,
-                                         @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                         @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+    public Mono<ResponseEntity<Object>> getAll(@RequestHeader(REQUEST_HEADER) Long userId,
+                                               @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
+                                               @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                               @RequestParam(name = "cursor", required = false) String cursor) {
+        if (cursor != null) {
+            return requestClient.getAll(userId, cursor, size);
+        }
         return requestClient.getAll(userId, from, size);
     }
 }
@@ -5,6 +5,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import javax.validation.Valid;
@@ -17,28 +18,28 @@ public class UserController {
     private final UserClient userClient;
 
     @PostMapping
-    public ResponseEntity<Object> create(@Valid @RequestBody UserDto userDto) {
+    public Mono<ResponseEntity<Object>> create(@Valid @RequestBody UserDto userDto) {
         return userClient.create(userDto);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getAll() {
+    public Mono<ResponseEntity<Object>> getAll() {
         return userClient.getAll();
     }
 
     @GetMapping("{userId}")
-    public ResponseEntity<Object> getById(@PathVariable Long userId) {
+    public Mono<ResponseEntity<Object>> getById(@PathVariable Long userId) {
         return userClient.getById(userId);
     }
 
     @PatchMapping("/{userId}")
-    public ResponseEntity<Object> update(@RequestBody UserDto userDto,
-                                         @PathVariable long userId) {
+    public Mono<ResponseEntity<Object>> update(@RequestBody UserDto userDto,
+                                               @PathVariable long userId) {
         return userClient.update(userDto, userId);
     }
 
     @DeleteMapping("{userId}")
-    public ResponseEntity<Object> deleteUser(@PathVariable Long userId) {
+    public Mono<ResponseEntity<Object>> deleteUser(@PathVariable Long userId) {
         return userClient.delete(userId);
     }
 }
@@ -0,0 +1,182 @@
+package ru.practicum.shareit.client;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+import ru.practicum.shareit.ShareItGateway;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@EnabledIfSystemProperty(named = "gateway.load-test", matches = "true")
+class GatewayLoadTest {
+    private static final int REQUESTS = 4000;
+    private static final int CONCURRENCY = 400;
+    private static final int TOMCAT_THREADS = 50;
+    private static final long SERVER_DELAY_MILLIS = 200;
+    private static final byte[] USER = "{\"id\":1,\"email\":\"user@mail.ru\",\"name\":\"user\"}"
+            .getBytes(StandardCharsets.UTF_8);
+    private static LoopResources serverLoop;
+    private static final AtomicInteger UPSTREAM_REQUESTS = new AtomicInteger();
+    private static DisposableServer server;
+
+    @BeforeAll
+    static void startServer() {
+        serverLoop = LoopResources.create("stub-server");
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .runOn(serverLoop)
+                .handle((request, response) -> Mono.fromRunnable(UPSTREAM_REQUESTS::incrementAndGet)
+                        .then(Mono.delay(Duration.ofMillis(SERVER_DELAY_MILLIS)))
+                        .then(response.header("Content-Type", "application/json")
+                                .sendByteArray(Mono.just(USER))
+                                .then()))
+                .bindNow();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.disposeNow();
+        serverLoop.dispose();
+    }
+
+    @Test
+    void compareBlockingAndReactiveModes() throws Exception {
+        LoadResult blocking = run("blocking", false);
+        LoadResult reactive = run("reactive", false);
+        LoadResult coalesced = run("blocking", true);
+
+        System.out.printf("%-10s %10s %10s %10s %10s %14s %10s%n", "mode", "coalescing", "p50, ms", "p99, ms",
+                "total, ms", "peak threads", "upstream");
+        for (LoadResult result : List.of(blocking, reactive, coalesced)) {
+            System.out.printf("%-10s %10s %10d %10d %10d %14d %10d%n", result.mode, result.coalescing, result.p50,
+                    result.p99, result.elapsed, result.peakThreads, result.upstream);
+        }
+        assertEquals(REQUESTS, blocking.succeeded);
+        assertEquals(REQUESTS, reactive.succeeded);
+        assertEquals(REQUESTS, coalesced.succeeded);
+    }
+
+    private LoadResult run(String mode, boolean coalescing) throws Exception {
+        try (ConfigurableApplicationContext gateway = new SpringApplicationBuilder(ShareItGateway.class)
+                .run("--server.port=0",
+                        "--server.tomcat.threads.max=" + TOMCAT_THREADS,
+                        "--shareit-server.url=http://localhost:" + server.port(),
+                        "--shareit-server.client.mode=" + mode,
+                        "--shareit-server.coalescing.enabled=" + coalescing,
+                        "--shareit-server.http-client.max-total=" + CONCURRENCY,
+                        "--shareit-server.http-client.max-per-route=" + CONCURRENCY,
+                        "--shareit-server.http-client.connection-request-timeout=30s",
+                        "--logging.level.org.springframework.web.client.RestTemplate=INFO")) {
+            int port = ((WebServerApplicationContext) gateway).getWebServer().getPort();
+            URI uri = URI.create("http://localhost:" + port + "/users/1");
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(Executors.newFixedThreadPool(8))
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            send(client, uri, CONCURRENCY);
+
+            AtomicBoolean running = new AtomicBoolean(true);
+            AtomicInteger peakThreads = new AtomicInteger();
+            Thread sampler = new Thread(() -> {
+                while (running.get()) {
+                    peakThreads.accumulateAndGet(gatewayThreads(), Math::max);
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+            sampler.start();
+            UPSTREAM_REQUESTS.set(0);
+            long started = System.nanoTime();
+            List<Long> latencies = send(client, uri, REQUESTS);
+            long elapsed = (System.nanoTime() - started) / 1_000_000;
+            running.set(false);
+            sampler.join();
+
+            Collections.sort(latencies);
+            return new LoadResult(mode, coalescing, percentile(latencies, 0.5), percentile(latencies, 0.99), elapsed,
+                    peakThreads.get(), UPSTREAM_REQUESTS.get(), latencies.size());
+        }
+    }
+
+    private static List<Long> send(HttpClient client, URI uri, int requests) {
+        Semaphore permits = new Semaphore(CONCURRENCY);
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(60)).GET().build();
+        for (int i = 0; i < requests; i++) {
+            permits.acquireUninterruptibly();
+            long started = System.nanoTime();
+            futures.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, e) -> {
+                        permits.release();
+                        if (e == null && response.statusCode() == 200) {
+                            latencies.add((System.nanoTime() - started) / 1_000_000);
+                        }
+                    }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).exceptionally(e -> null).join();
+        return new ArrayList<>(latencies);
+    }
+
+    private static int gatewayThreads() {
+        return (int) Thread.getAllStackTraces().keySet().stream()
+                .map(Thread::getName)
+                .filter(name -> name.startsWith("http-nio-") || name.startsWith("reactor-http-"))
+                .count();
+    }
+
+    private static long percentile(List<Long> sorted, double percentile) {
+        return sorted.isEmpty() ? 0 : sorted.get((int) Math.ceil(percentile * sorted.size()) - 1);
+    }
+
+    private static class LoadResult {
+        private final String mode;
+        private final boolean coalescing;
+        private final long p50;
+        private final long p99;
+        private final long elapsed;
+        private final int peakThreads;
+        private final int upstream;
+        private final int succeeded;
+
+        private LoadResult(String mode, boolean coalescing, long p50, long p99, long elapsed, int peakThreads,
+                           int upstream, int succeeded) {
+            this.mode = mode;
+            this.coalescing = coalescing;
+            this.p50 = p50;
+            this.p99 = p99;
+            this.elapsed = elapsed;
+            this.peakThreads = peakThreads;
+            this.upstream = upstream;
+            this.succeeded = succeeded;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RequestCoalescerTest {
+    private static final String KEY = "GET /items/1:1";
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RequestCoalescer coalescer = new RequestCoalescer(true, meterRegistry);
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private Sinks.One<ResponseEntity<Object>> upstream;
+
+    @Test
+    void coalesce_whenIdenticalRequestsInFlight_callUpstreamOnce() throws Exception {
+        CompletableFuture<ResponseEntity<Object>> leader = coalescer.coalesce(KEY, request()).toFuture();
+        CompletableFuture<ResponseEntity<Object>> waiter = coalescer.coalesce(KEY, request()).toFuture();
+        ResponseEntity<Object> response = ResponseEntity.ok("item");
+
+        assertFalse(leader.isDone());
+        assertFalse(waiter.isDone());
+        upstream.tryEmitValue(response);
+
+        assertSame(response, leader.get());
+        assertSame(response, waiter.get());
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(1, requests("forwarded"));
+        assertEquals(1, requests("coalesced"));
+    }
+
+    @Test
+    void coalesce_whenRequestCompleted_forwardNextRequest() throws Exception {
+        CompletableFuture<ResponseEntity<Object>> first = coalescer.coalesce(KEY, request()).toFuture();
+        upstream.tryEmitValue(ResponseEntity.ok("first"));
+        first.get();
+
+        assertEquals(0, inFlight());
+        CompletableFuture<ResponseEntity<Object>> second = coalescer.coalesce(KEY, request()).toFuture();
+        upstream.tryEmitValue(ResponseEntity.ok("second"));
+
+        assertEquals("second", second.get().getBody());
+        assertEquals(2, upstreamCalls.get());
+        assertEquals(0, inFlight());
+    }
+
+    @Test
+    void coalesce_whenUpstreamFails_propagateErrorToAllWaiters() {
+        CompletableFuture<ResponseEntity<Object>> leader = coalescer.coalesce(KEY, request()).toFuture();
+        CompletableFuture<ResponseEntity<Object>> waiter = coalescer.coalesce(KEY, request()).toFuture();
+        IllegalStateException error = new IllegalStateException("server is down");
+
+        upstream.tryEmitError(error);
+
+        assertSame(error, assertThrows(ExecutionException.class, leader::get).getCause());
+        assertSame(error, assertThrows(ExecutionException.class, waiter::get).getCause());
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(0, inFlight());
+    }
+
+    @Test
+    void coalesce_whenDifferentKeys_callUpstreamForEach() {
+        coalescer.coalesce(KEY, request()).subscribe();
+        coalescer.coalesce("GET /items/2:1", request()).subscribe();
+
+        assertEquals(2, upstreamCalls.get());
+        assertEquals(2, inFlight());
+    }
+
+    @Test
+    void coalesce_whenDisabled_callUpstreamForEveryRequest() {
+        RequestCoalescer disabled = new RequestCoalescer(false, new SimpleMeterRegistry());
+
+        disabled.coalesce(KEY, request()).subscribe();
+        disabled.coalesce(KEY, request()).subscribe();
+
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    private Supplier<Mono<ResponseEntity<Object>>> request() {
+        return () -> {
+            upstreamCalls.incrementAndGet();
+            upstream = Sinks.one();
+            return upstream.asMono();
+        };
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("shareit-server.coalescing.requests").tag("result", result).counter().count();
+    }
+
+    private double inFlight() {
+        return meterRegistry.get("shareit-server.coalescing.in-flight").gauge().value();
+    }
+}
@@ -0,0 +1,119 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ResponseCacheTest {
+    private static final String KEY = "/items/1:1";
+    private static final byte[] BODY = "{\"id\":1}".getBytes(StandardCharsets.UTF_8);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ResponseCache cache = new ResponseCache(DataSize.ofMegabytes(1), Duration.ZERO, meterRegistry);
+
+    @Test
+    void update_whenOkWithEtag_storeResponse() {
+        ResponseEntity<Object> response = ok("\"1\"", BODY);
+
+        assertEquals(response, cache.update(KEY, null, response));
+        ResponseCache.CachedResponse cached = cache.get(KEY);
+        assertNotNull(cached);
+        assertEquals("\"1\"", cached.getEtag());
+        assertArrayEquals(BODY, (byte[]) cached.toResponseEntity().getBody());
+    }
+
+    @Test
+    void update_whenNotModified_returnCachedBody() {
+        cache.update(KEY, null, ok("\"1\"", BODY));
+        ResponseCache.CachedResponse cached = cache.get(KEY);
+
+        ResponseEntity<Object> response = cache.update(KEY, cached,
+                ResponseEntity.status(HttpStatus.NOT_MODIFIED).build());
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"1\"", response.getHeaders().getETag());
+        assertArrayEquals(BODY, (byte[]) response.getBody());
+        assertEquals(1, revalidations("not_modified"));
+        assertEquals(0, revalidations("modified"));
+    }
+
+    @Test
+    void update_whenModified_replaceEntry() {
+        cache.update(KEY, null, ok("\"1\"", BODY));
+        byte[] changed = "{\"id\":1,\"name\":\"drill\"}".getBytes(StandardCharsets.UTF_8);
+
+        cache.update(KEY, cache.get(KEY), ok("\"2\"", changed));
+
+        assertEquals("\"2\"", cache.get(KEY).getEtag());
+        assertArrayEquals(changed, (byte[]) cache.get(KEY).toResponseEntity().getBody());
+        assertEquals(1, revalidations("modified"));
+    }
+
+    @Test
+    void update_whenResponseNotCacheable_evictEntry() {
+        cache.update(KEY, null, ok("\"1\"", BODY));
+
+        ResponseEntity<Object> notFound = ResponseEntity.status(HttpStatus.NOT_FOUND).body(new byte[0]);
+
+        assertEquals(notFound, cache.update(KEY, cache.get(KEY), notFound));
+        assertNull(cache.get(KEY));
+    }
+
+    @Test
+    void update_whenNoEtag_skipCaching() {
+        cache.update(KEY, null, ResponseEntity.ok(BODY));
+
+        assertNull(cache.get(KEY));
+    }
+
+    @Test
+    void hitRatio_whenUpstreamReturnsNotModified_countAsHit() {
+        cache.update(KEY, null, ok("\"1\"", BODY));
+        ResponseCache.CachedResponse cached = cache.get(KEY);
+
+        assertNull(cache.serve(cached));
+        cache.update(KEY, cached, ResponseEntity.status(HttpStatus.NOT_MODIFIED).build());
+        assertEquals(1.0, cache.hitRatio());
+    }
+
+    @Test
+    void hitRatio_whenUpstreamReturnsChangedBody_countAsMiss() {
+        cache.update(KEY, null, ok("\"1\"", BODY));
+        ResponseCache.CachedResponse notModified = cache.get(KEY);
+        cache.serve(notModified);
+        cache.update(KEY, notModified, ResponseEntity.status(HttpStatus.NOT_MODIFIED).build());
+        ResponseCache.CachedResponse modified = cache.get(KEY);
+
+        assertNull(cache.serve(modified));
+        cache.update(KEY, modified, ok("\"2\"", BODY));
+        assertEquals(0.5, cache.hitRatio());
+    }
+
+    @Test
+    void hitRatio_whenEntryFresh_countAsHit() {
+        ResponseCache freshCache = new ResponseCache(DataSize.ofMegabytes(1), Duration.ofMinutes(1),
+                new SimpleMeterRegistry());
+        freshCache.update(KEY, null, ok("\"1\"", BODY));
+
+        assertNull(freshCache.serve(null));
+        assertNotNull(freshCache.serve(freshCache.get(KEY)));
+        assertEquals(0.5, freshCache.hitRatio());
+    }
+
+    private static ResponseEntity<Object> ok(String etag, byte[] body) {
+        return ResponseEntity.ok().eTag(etag).body(body);
+    }
+
+    private double revalidations(String result) {
+        return meterRegistry.get("cache.revalidations").tag("result", result).counter().count();
+    }
+}
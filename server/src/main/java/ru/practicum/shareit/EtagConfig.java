@@ -0,0 +1,36 @@
+package ru.practicum.shareit;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.regex.Pattern;
+
+@Configuration
+public class EtagConfig {
+
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> itemEtagFilter() {
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration =
+                new FilterRegistrationBean<>(new ItemEtagFilter());
+        registration.addUrlPatterns("/items/*");
+        return registration;
+    }
+
+    static class ItemEtagFilter extends ShallowEtagHeaderFilter {
+        private static final Pattern CACHED_PATHS = Pattern.compile("/items/(\\d+|search)");
+
+        @Override
+        protected boolean shouldNotFilter(HttpServletRequest request) {
+            String method = request.getMethod();
+            if (!HttpMethod.GET.matches(method) && !HttpMethod.HEAD.matches(method)) {
+                return true;
+            }
+            String path = request.getRequestURI().substring(request.getContextPath().length());
+            return !CACHED_PATHS.matcher(path).matches();
+        }
+    }
+}
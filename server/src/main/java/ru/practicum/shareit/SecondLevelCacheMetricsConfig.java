@@ -0,0 +1,26 @@
+package ru.practicum.shareit;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.persistence.EntityManagerFactory;
+
+@Configuration
+public class SecondLevelCacheMetricsConfig {
+
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        return registry -> {
+            CacheManager cacheManager = ((JCacheRegionFactory) entityManagerFactory
+                    .unwrap(SessionFactoryImplementor.class).getCache().getRegionFactory()).getCacheManager();
+            for (String region : cacheManager.getCacheNames()) {
+                JCacheMetrics.monitor(registry, cacheManager.getCache(region));
+            }
+        };
+    }
+}
@@ -0,0 +1,132 @@
+package ru.practicum.shareit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Slf4j
+@Configuration
+@Profile("virtual-threads")
+public class VirtualThreadsConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadExecutor() {
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            log.info("Обработка запросов переведена на виртуальные потоки.");
+            return executor;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Профиль virtual-threads требует Java 21 или новее.", e);
+        }
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadsProtocolHandlerCustomizer(
+            ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    @Bean
+    public AsyncTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadExecutor) {
+        return new TaskExecutorAdapter(virtualThreadExecutor);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConnectionPoolBulkhead> connectionPoolBulkhead(
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int permits,
+            @Value("${spring.datasource.hikari.connection-timeout:30000}") long timeoutMillis) {
+        FilterRegistrationBean<ConnectionPoolBulkhead> registration =
+                new FilterRegistrationBean<>(new ConnectionPoolBulkhead(permits, timeoutMillis));
+        registration.addUrlPatterns("/users/*", "/items/*", "/bookings/*", "/requests/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    static class ConnectionPoolBulkhead extends OncePerRequestFilter {
+        private final Semaphore permits;
+        private final long timeoutMillis;
+
+        ConnectionPoolBulkhead(int permits, long timeoutMillis) {
+            this.permits = new Semaphore(permits, true);
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                        FilterChain filterChain) throws ServletException, IOException {
+            try {
+                if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                    response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Сервер перегружен.");
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Сервер перегружен.");
+                return;
+            }
+            AtomicBoolean released = new AtomicBoolean();
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                if (request.isAsyncStarted()) {
+                    request.getAsyncContext().addListener(new ReleasingListener(permits, released));
+                } else if (released.compareAndSet(false, true)) {
+                    permits.release();
+                }
+            }
+        }
+    }
+
+    private static class ReleasingListener implements AsyncListener {
+        private final Semaphore permits;
+        private final AtomicBoolean released;
+
+        private ReleasingListener(Semaphore permits, AtomicBoolean released) {
+            this.permits = permits;
+            this.released = released;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
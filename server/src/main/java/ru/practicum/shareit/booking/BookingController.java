@@ -1,9 +1,15 @@
 package ru.practicum.shareit.booking;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingApproveDto;
+import ru.practicum.shareit.booking.dto.BookingApproveResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingShortDto;
 import ru.practicum.shareit.booking.dto.BookingStateDto;
 import ru.practicum.shareit.booking.dto.State;
 import ru.practicum.shareit.booking.model.Booking;
@@ -36,6 +42,12 @@ public class BookingController {
         return bookingService.updateApprove(bookingId, approved, userId);
     }
 
+    @PatchMapping("/approve")
+    public List<BookingApproveResultDto> updateAll(@RequestHeader(REQUEST_HEADER) Long userId,
+                                                   @Valid @RequestBody BookingApproveDto approveDto) {
+        return bookingService.updateApproveAll(approveDto, userId);
+    }
+
     @GetMapping("/{id}")
     public Booking getById(@RequestHeader(REQUEST_HEADER) Long userId,
                            @PathVariable("id") long bookingId) {
@@ -43,19 +55,50 @@ public class BookingController {
     }
 
     @GetMapping
-    public List<Booking> getAllByState(@RequestHeader(REQUEST_HEADER) Long userId,
-                                       @Valid @RequestParam(defaultValue = "ALL") State state,
-                                       @RequestParam(defaultValue = "0") int from,
-                                       @RequestParam(defaultValue = "10") int size) {
-        return bookingService.getAllByState(new BookingStateDto(userId, state), from, size);
+    public ResponseEntity<List<BookingShortDto>> getAllByState(@RequestHeader(REQUEST_HEADER) Long userId,
+                                                       @Valid @RequestParam(defaultValue = "ALL") State state,
+                                                       @RequestParam(defaultValue = "0") int from,
+                                                       @RequestParam(defaultValue = "10") int size) {
+        return bookingService.getAllByState(new BookingStateDto(userId, state), from, size)
+                .toResponseEntity();
+    }
+
+    @GetMapping(params = "cursor")
+    public ResponseEntity<List<BookingShortDto>> getAllByStateAfter(@RequestHeader(REQUEST_HEADER) Long userId,
+                                                            @Valid @RequestParam(defaultValue = "ALL") State state,
+                                                            @RequestParam String cursor,
+                                                            @RequestParam(defaultValue = "10") int size) {
+        return bookingService.getAllByStateAfter(new BookingStateDto(userId, state), cursor, size)
+                .toResponseEntity();
     }
 
     @GetMapping("/owner")
-    public List<Booking> getAllByOwner(@RequestHeader(REQUEST_HEADER) Long userId,
-                                       @Valid @RequestParam(defaultValue = "ALL") State state,
-                                       @RequestParam(defaultValue = "0") int from,
-                                       @RequestParam(defaultValue = "10") int size) {
-        return bookingService.getAllByOwner(new BookingStateDto(userId, state), from, size);
+    public ResponseEntity<List<BookingShortDto>> getAllByOwner(@RequestHeader(REQUEST_HEADER) Long userId,
+                                                       @Valid @RequestParam(defaultValue = "ALL") State state,
+                                                       @RequestParam(defaultValue = "0") int from,
+                                                       @RequestParam(defaultValue = "10") int size) {
+        return bookingService.getAllByOwner(new BookingStateDto(userId, state), from, size)
+                .toResponseEntity();
+    }
+
+    @GetMapping(path = "/owner", params = "cursor")
+    public ResponseEntity<List<BookingShortDto>> getAllByOwnerAfter(@RequestHeader(REQUEST_HEADER) Long userId,
+                                                            @Valid @RequestParam(defaultValue = "ALL") State state,
+                                                            @RequestParam String cursor,
+                                                            @RequestParam(defaultValue = "10") int size) {
+        return bookingService.getAllByOwnerAfter(new BookingStateDto(userId, state), cursor, size)
+                .toResponseEntity();
+    }
+
+    @GetMapping("/owner/export")
+    public ResponseEntity<StreamingResponseBody> exportByOwner(@RequestHeader(REQUEST_HEADER) Long userId,
+                                                               @Valid @RequestParam(defaultValue = "ALL")
+                                                               State state) {
+        BookingStateDto bookingStateDto = new BookingStateDto(userId, state);
+        bookingService.checkExportAllowed(bookingStateDto);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> bookingService.exportByOwner(bookingStateDto, out));
     }
 
     @ResponseStatus(HttpStatus.BAD_REQUEST)
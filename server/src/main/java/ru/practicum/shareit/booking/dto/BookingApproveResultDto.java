@@ -0,0 +1,19 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class BookingApproveResultDto {
+    private long id;
+    private Result result;
+    private Status status;
+
+    public enum Result {
+        UPDATED,
+        UNCHANGED,
+        NOT_FOUND,
+        CONFLICT
+    }
+}
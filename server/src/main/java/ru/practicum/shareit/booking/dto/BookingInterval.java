@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class BookingInterval {
+    private long itemId;
+    private long id;
+    private long bookerId;
+    private LocalDateTime start;
+    private LocalDateTime end;
+}
@@ -0,0 +1,35 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class BookingShortDto {
+    private long id;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private Status status;
+    private ItemShort item;
+    private BookerShort booker;
+
+    public BookingShortDto(long id, LocalDateTime start, LocalDateTime end, Status status,
+                           long itemId, String itemName, Long bookerId) {
+        this(id, start, end, status, new ItemShort(itemId, itemName), new BookerShort(bookerId));
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class ItemShort {
+        private long id;
+        private String name;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class BookerShort {
+        private long id;
+    }
+}
@@ -1,6 +1,8 @@
 package ru.practicum.shareit.booking.mapper;
 
+import ru.practicum.shareit.booking.dto.BookingInterval;
 import ru.practicum.shareit.booking.dto.BookingItemDto;
+import ru.practicum.shareit.booking.dto.BookingShortDto;
 import ru.practicum.shareit.booking.model.Booking;
 
 public class BookingMapper {
@@ -10,4 +12,31 @@ public class BookingMapper {
                 .bookerId(booking.getBooker().getId())
                 .build();
     }
+
+    public static BookingItemDto bookingItemDto(BookingInterval booking) {
+        return BookingItemDto.builder()
+                .id(booking.getId())
+                .bookerId(booking.getBookerId())
+                .build();
+    }
+
+    public static BookingInterval bookingInterval(Booking booking) {
+        return new BookingInterval(
+                booking.getItem().getId(),
+                booking.getId(),
+                booking.getBooker().getId(),
+                booking.getStart(),
+                booking.getEnd());
+    }
+
+    public static BookingShortDto bookingShortDto(Booking booking) {
+        return new BookingShortDto(
+                booking.getId(),
+                booking.getStart(),
+                booking.getEnd(),
+                booking.getStatus(),
+                booking.getItem().getId(),
+                booking.getItem().getName(),
+                booking.getBooker().getId());
+    }
 }
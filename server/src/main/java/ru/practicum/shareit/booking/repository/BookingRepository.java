@@ -1,65 +1,162 @@
 package ru.practicum.shareit.booking.repository;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.booking.dto.BookingSlot;
 import ru.practicum.shareit.booking.dto.Status;
 import ru.practicum.shareit.booking.model.Booking;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 public interface BookingRepository extends JpaRepository<Booking, Long> {
-    Page<Booking> findByBooker_Id(long bookerId, Pageable page);
+    String SHORT_SELECT = "select new ru.practicum.shareit.booking.dto.BookingShortDto(" +
+            "b.id, b.start, b.end, b.status, i.id, i.name, b.booker.id) " +
+            "from Booking b join b.item i ";
 
-    @Query(value = "select b from Booking b " +
+    @Override
+    @EntityGraph(Booking.DETAILS_GRAPH)
+    Optional<Booking> findById(Long id);
+
+    @Query(value = SHORT_SELECT +
+            "where b.booker.id = ?1")
+    Slice<BookingShortDto> findByBooker_Id(long bookerId, Pageable page);
+
+    @Query(value = SHORT_SELECT +
             "where b.booker.id = ?1 and ?2 between b.start and b.end " +
             "order by b.start desc")
-    Page<Booking> findCurrentBooking(long bookerId, LocalDateTime now, Pageable page);
+    Slice<BookingShortDto> findCurrentBooking(long bookerId, LocalDateTime now, Pageable page);
 
-    Page<Booking> findByBooker_IdAndEndIsBefore(long bookerId, LocalDateTime now, Pageable page);
+    @Query(value = SHORT_SELECT +
+            "where b.booker.id = ?1 and b.end < ?2")
+    Slice<BookingShortDto> findByBooker_IdAndEndIsBefore(long bookerId, LocalDateTime now, Pageable page);
 
+    @Query(value = "select b from Booking b " +
+            "where b.booker.id = ?1 and b.end < ?2")
     List<Booking> findByBooker_IdAndEndIsBefore(long bookerId, LocalDateTime now);
 
-    Page<Booking> findByBooker_IdAndStartIsAfter(long bookerId, LocalDateTime now, Pageable page);
+    @Query(value = SHORT_SELECT +
+            "where b.booker.id = ?1 and b.start > ?2")
+    Slice<BookingShortDto> findByBooker_IdAndStartIsAfter(long bookerId, LocalDateTime now, Pageable page);
 
-    @Query(value = "select b from Booking b " +
+    @Query(value = SHORT_SELECT +
             "where b.booker.id = ?1 and b.status = ?2 " +
             "order by b.start desc")
-    Page<Booking> findBookingByStatus(long bookerId, Status status, Pageable page);
+    Slice<BookingShortDto> findBookingByStatus(long bookerId, Status status, Pageable page);
 
-    @Query(value = "select b from Booking b " +
-            "left join b.item i " +
+    @Query(value = SHORT_SELECT +
             "where i.owner.id = ?1 " +
             "order by b.start desc")
-    Page<Booking> findByOwner(long bookerId, Pageable page);
+    Slice<BookingShortDto> findByOwner(long ownerId, Pageable page);
 
-    @Query(value = "select b from Booking b " +
-            "left join b.item i " +
+    @Query(value = SHORT_SELECT +
             "where i.owner.id = ?1 and ?2 between b.start and b.end " +
             "order by b.start desc")
-    Page<Booking> findByOwnerCurrentBooking(long bookerId, LocalDateTime now, Pageable page);
+    Slice<BookingShortDto> findByOwnerCurrentBooking(long ownerId, LocalDateTime now, Pageable page);
 
-    @Query(value = "select b from Booking b " +
-            "left join b.item i " +
+    @Query(value = SHORT_SELECT +
             "where i.owner.id = ?1 and b.end < ?2 " +
             "order by b.start desc")
-    Page<Booking> findByOwnerPastBooking(long bookerId, LocalDateTime now, Pageable page);
+    Slice<BookingShortDto> findByOwnerPastBooking(long ownerId, LocalDateTime now, Pageable page);
 
-    @Query(value = "select b from Booking b " +
-            "left join b.item i " +
+    @Query(value = SHORT_SELECT +
             "where i.owner.id = ?1 and b.start > ?2 " +
             "order by b.start desc")
-    Page<Booking> findByOwnerFutureBooking(long bookerId, LocalDateTime now, Pageable page);
+    Slice<BookingShortDto> findByOwnerFutureBooking(long ownerId, LocalDateTime now, Pageable page);
 
-    @Query(value = "select b from Booking b " +
-            "left join b.item i " +
+    @Query(value = SHORT_SELECT +
             "where i.owner.id = ?1 and b.status = ?2 " +
             "order by b.start desc")
-    Page<Booking> findByOwnerByStatus(long bookerId, Status status, Pageable page);
+    Slice<BookingShortDto> findByOwnerByStatus(long ownerId, Status status, Pageable page);
+
+    @Query(value = SHORT_SELECT +
+            "where b.booker.id = ?1 and b.status in ?2 " +
+            "and b.start > ?3 and b.start <= ?4 and b.end >= ?5 and b.end < ?6 " +
+            "and (b.start < ?7 or (b.start = ?7 and b.id < ?8)) " +
+            "order by b.start desc, b.id desc")
+    Slice<BookingShortDto> findByBookerAfterCursor(long bookerId, Collection<Status> statuses,
+                                                  LocalDateTime startAfter, LocalDateTime startUntil,
+                                                  LocalDateTime endFrom, LocalDateTime endBefore,
+                                                  LocalDateTime cursorStart, long cursorId, Pageable page);
 
+    @Query(value = SHORT_SELECT +
+            "where i.owner.id = ?1 and b.status in ?2 " +
+            "and b.start > ?3 and b.start <= ?4 and b.end >= ?5 and b.end < ?6 " +
+            "and (b.start < ?7 or (b.start = ?7 and b.id < ?8)) " +
+            "order by b.start desc, b.id desc")
+    Slice<BookingShortDto> findByOwnerAfterCursor(long ownerId, Collection<Status> statuses,
+                                                 LocalDateTime startAfter, LocalDateTime startUntil,
+                                                 LocalDateTime endFrom, LocalDateTime endBefore,
+                                                 LocalDateTime cursorStart, long cursorId, Pageable page);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(value = SHORT_SELECT +
+            "where i.owner.id = ?1 and b.status in ?2 " +
+            "and b.start > ?3 and b.start <= ?4 and b.end >= ?5 and b.end < ?6 " +
+            "order by b.start desc, b.id desc")
+    Stream<BookingShortDto> streamByOwner(long ownerId, Collection<Status> statuses,
+                                          LocalDateTime startAfter, LocalDateTime startUntil,
+                                          LocalDateTime endFrom, LocalDateTime endBefore);
+
+    @Query(value = "select b from Booking b " +
+            "where b.item.id in ?1 and b.status = ?2")
     List<Booking> findAllByItem_IdInAndStatus(List<Long> itemsId, Status status);
 
+    @Query(value = "select case when count(b) > 0 then true else false end from Booking b " +
+            "where b.item.id = ?1 and b.status = ?2 and b.start < ?4 and b.end > ?3 and b.id <> ?5")
+    boolean existsOverlapping(long itemId, Status status, LocalDateTime start, LocalDateTime end, long excludeId);
+
+    @Query(value = "select new ru.practicum.shareit.booking.dto.BookingInterval(" +
+            "b.item.id, b.id, b.booker.id, b.start, b.end) " +
+            "from Booking b " +
+            "where b.item.id in ?1 and b.status = ?2 and b.start < ?4 and b.end > ?3")
+    List<BookingInterval> findIntervals(Collection<Long> itemsId, Status status, LocalDateTime from,
+                                        LocalDateTime to);
+
+    @Query(value = "select new ru.practicum.shareit.booking.dto.BookingInterval(" +
+            "b.item.id, b.id, b.booker.id, b.start, b.end) " +
+            "from Booking b " +
+            "where b.item.id in ?1 and b.status = ?2 and b.end > ?3")
+    List<BookingInterval> findIntervalsEndingAfter(Collection<Long> itemsId, Status status, LocalDateTime now);
+
+    @Query(value = "select new ru.practicum.shareit.booking.dto.BookingInterval(" +
+            "b.item.id, b.id, b.booker.id, b.start, b.end) " +
+            "from Booking b " +
+            "where b.item.id in ?1 and b.status = ?2 and b.end = (" +
+            "select max(p.end) from Booking p " +
+            "where p.item.id = b.item.id and p.status = ?2 and p.end <= ?3)")
+    List<BookingInterval> findLatestEndedIntervals(Collection<Long> itemsId, Status status, LocalDateTime now);
+
+    @Query(value = "select new ru.practicum.shareit.booking.dto.BookingSlot(b.start, b.end, b.status) " +
+            "from Booking b " +
+            "where b.item.id = ?1 and b.status in ?2 and b.start < ?4 and b.end > ?3 " +
+            "order by b.start")
+    List<BookingSlot> findSlots(long itemId, Collection<Status> statuses, LocalDateTime from, LocalDateTime to);
+
+    @Query(value = "select b from Booking b " +
+            "where b.id in ?1 and b.item.owner.id = ?2")
+    List<Booking> findAllByIdInAndOwner(Collection<Long> ids, long ownerId);
+
+    @Modifying(clearAutomatically = true)
+    @Query(value = "update Booking b set b.status = ?3, b.version = b.version + 1 " +
+            "where b.id in ?1 and b.status = ?2 " +
+            "and b.item.id in (select i.id from Item i where i.owner.id = ?4)")
+    int updateStatus(Collection<Long> ids, Status expected, Status status, long ownerId);
+
+    @Query(value = "select b from Booking b " +
+            "where b.item.id = ?1 and b.status = ?2")
     List<Booking> findAllByItem_IdAndStatus(long itemId, Status status);
 }
\ No newline at end of file
@@ -0,0 +1,97 @@
+package ru.practicum.shareit.booking.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.dto.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Component
+public class BookingIntervalIndex {
+    private final BookingRepository bookingRepository;
+    private final Cache<Long, BookingIntervals> items;
+    private final Counter hits;
+    private final Counter misses;
+    private long generation;
+
+    public BookingIntervalIndex(BookingRepository bookingRepository,
+                                MeterRegistry meterRegistry,
+                                @Value("${shareit-server.booking.interval-index.max-items:10000}") int maxItems,
+                                @Value("${shareit-server.booking.interval-index.ttl:30s}") Duration ttl) {
+        this.bookingRepository = bookingRepository;
+        this.items = Caffeine.newBuilder()
+                .maximumSize(maxItems)
+                .expireAfterWrite(ttl)
+                .build();
+        this.hits = meterRegistry.counter("bookings.interval.index.requests", "result", "hit");
+        this.misses = meterRegistry.counter("bookings.interval.index.requests", "result", "miss");
+        Gauge.builder("bookings.interval.index.items", this, BookingIntervalIndex::size).register(meterRegistry);
+    }
+
+    public BookingIntervals get(long itemId) {
+        return get(List.of(itemId)).get(itemId);
+    }
+
+    public Map<Long, BookingIntervals> get(Collection<Long> itemsId) {
+        long loadedAt;
+        synchronized (this) {
+            loadedAt = generation;
+        }
+        Map<Long, BookingIntervals> found = new HashMap<>(items.getAllPresent(itemsId));
+        List<Long> missing = itemsId.stream()
+                .filter(itemId -> !found.containsKey(itemId))
+                .distinct()
+                .collect(Collectors.toList());
+        hits.increment(found.size());
+        if (missing.isEmpty()) {
+            return found;
+        }
+        misses.increment(missing.size());
+        LocalDateTime today = LocalDateTime.now();
+        Map<Long, List<BookingInterval>> loaded = Stream.concat(
+                        bookingRepository.findLatestEndedIntervals(missing, Status.APPROVED, today).stream(),
+                        bookingRepository.findIntervalsEndingAfter(missing, Status.APPROVED, today).stream())
+                .collect(Collectors.groupingBy(BookingInterval::getItemId));
+        synchronized (this) {
+            for (Long itemId : missing) {
+                BookingIntervals intervals = BookingIntervals.of(loaded.getOrDefault(itemId, List.of()), today);
+                if (generation == loadedAt) {
+                    items.put(itemId, intervals);
+                }
+                found.put(itemId, intervals);
+            }
+        }
+        return found;
+    }
+
+    public synchronized void put(BookingInterval booking) {
+        generation++;
+        items.asMap().computeIfPresent(booking.getItemId(), (itemId, intervals) -> intervals.with(booking));
+    }
+
+    public synchronized void remove(long itemId, long bookingId) {
+        generation++;
+        items.asMap().computeIfPresent(itemId, (id, intervals) -> intervals.without(bookingId));
+    }
+
+    public synchronized void clear() {
+        generation++;
+        items.invalidateAll();
+    }
+
+    public long size() {
+        items.cleanUp();
+        return items.estimatedSize();
+    }
+}
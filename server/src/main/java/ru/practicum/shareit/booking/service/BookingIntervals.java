@@ -0,0 +1,110 @@
+package ru.practicum.shareit.booking.service;
+
+import ru.practicum.shareit.booking.dto.BookingInterval;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+public final class BookingIntervals {
+    private static final Comparator<BookingInterval> BY_START = Comparator.comparing(BookingInterval::getStart)
+            .thenComparingLong(BookingInterval::getId);
+
+    private final BookingInterval[] bookings;
+    private final LocalDateTime coveredFrom;
+    private final LocalDateTime[] starts;
+    private final int[] latestEnd;
+    private final LocalDateTime[] busyStarts;
+    private final LocalDateTime[] busyEnds;
+
+    private BookingIntervals(BookingInterval[] bookings, LocalDateTime coveredFrom) {
+        this.bookings = bookings;
+        this.coveredFrom = coveredFrom;
+        this.starts = new LocalDateTime[bookings.length];
+        this.latestEnd = new int[bookings.length];
+        List<LocalDateTime> mergedStarts = new ArrayList<>();
+        List<LocalDateTime> mergedEnds = new ArrayList<>();
+        for (int i = 0; i < bookings.length; i++) {
+            BookingInterval booking = bookings[i];
+            starts[i] = booking.getStart();
+            latestEnd[i] = i > 0 && !booking.getEnd().isAfter(bookings[latestEnd[i - 1]].getEnd())
+                    ? latestEnd[i - 1] : i;
+            int last = mergedEnds.size() - 1;
+            if (last >= 0 && !booking.getStart().isAfter(mergedEnds.get(last))) {
+                if (booking.getEnd().isAfter(mergedEnds.get(last))) {
+                    mergedEnds.set(last, booking.getEnd());
+                }
+            } else {
+                mergedStarts.add(booking.getStart());
+                mergedEnds.add(booking.getEnd());
+            }
+        }
+        this.busyStarts = mergedStarts.toArray(new LocalDateTime[0]);
+        this.busyEnds = mergedEnds.toArray(new LocalDateTime[0]);
+    }
+
+    public static BookingIntervals of(Collection<BookingInterval> bookings) {
+        return of(bookings, LocalDateTime.MIN);
+    }
+
+    public static BookingIntervals of(Collection<BookingInterval> bookings, LocalDateTime coveredFrom) {
+        BookingInterval[] sorted = bookings.toArray(new BookingInterval[0]);
+        Arrays.sort(sorted, BY_START);
+        return new BookingIntervals(sorted, coveredFrom);
+    }
+
+    public BookingIntervals with(BookingInterval booking) {
+        List<BookingInterval> updated = Arrays.stream(bookings)
+                .filter(b -> b.getId() != booking.getId())
+                .collect(Collectors.toCollection(ArrayList::new));
+        updated.add(booking);
+        return of(updated, coveredFrom);
+    }
+
+    public BookingIntervals without(long bookingId) {
+        return of(Arrays.stream(bookings)
+                .filter(b -> b.getId() != bookingId)
+                .collect(Collectors.toList()), coveredFrom);
+    }
+
+    public boolean isFree(LocalDateTime from, LocalDateTime to) {
+        if (from.isBefore(coveredFrom)) {
+            throw new IllegalStateException("Интервалы бронирований загружены только начиная с " + coveredFrom);
+        }
+        int busy = countBefore(busyStarts, to, false) - 1;
+        return busy < 0 || !busyEnds[busy].isAfter(from);
+    }
+
+    public Optional<BookingInterval> last(LocalDateTime now) {
+        int started = countBefore(starts, now, false) - 1;
+        return started < 0 ? Optional.empty() : Optional.of(bookings[latestEnd[started]]);
+    }
+
+    public Optional<BookingInterval> next(LocalDateTime now) {
+        int started = countBefore(starts, now, true);
+        return started < bookings.length ? Optional.of(bookings[started]) : Optional.empty();
+    }
+
+    public int size() {
+        return bookings.length;
+    }
+
+    private static int countBefore(LocalDateTime[] values, LocalDateTime bound, boolean inclusive) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle].isBefore(bound) || (inclusive && values[middle].isEqual(bound))) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -1,9 +1,16 @@
 package ru.practicum.shareit.booking.service;
 
+import ru.practicum.shareit.booking.dto.BookingApproveDto;
+import ru.practicum.shareit.booking.dto.BookingApproveResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingShortDto;
 import ru.practicum.shareit.booking.dto.BookingStateDto;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.OffsetPage;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 public interface BookingService {
@@ -12,9 +19,19 @@ public interface BookingService {
 
     Booking updateApprove(long bookingId, boolean approved, long userId);
 
+    List<BookingApproveResultDto> updateApproveAll(BookingApproveDto approveDto, long userId);
+
     Booking getById(long bookingId, long userId);
 
-    List<Booking> getAllByState(BookingStateDto bookingStateDto, int from, int size);
+    OffsetPage<BookingShortDto> getAllByState(BookingStateDto bookingStateDto, int from, int size);
+
+    OffsetPage<BookingShortDto> getAllByOwner(BookingStateDto bookingStateDto, int from, int size);
+
+    CursorPage<BookingShortDto> getAllByStateAfter(BookingStateDto bookingStateDto, String cursor, int size);
+
+    CursorPage<BookingShortDto> getAllByOwnerAfter(BookingStateDto bookingStateDto, String cursor, int size);
+
+    void checkExportAllowed(BookingStateDto bookingStateDto);
 
-    List<Booking> getAllByOwner(BookingStateDto bookingStateDto, int from, int size);
+    void exportByOwner(BookingStateDto bookingStateDto, OutputStream out) throws IOException;
 }
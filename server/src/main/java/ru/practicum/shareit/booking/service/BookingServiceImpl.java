@@ -1,32 +1,68 @@
 package ru.practicum.shareit.booking.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
+import ru.practicum.shareit.booking.dto.BookingApproveDto;
+import ru.practicum.shareit.booking.dto.BookingApproveResultDto;
+import ru.practicum.shareit.booking.dto.BookingApproveResultDto.Result;
+import ru.practicum.shareit.booking.dto.BookingInterval;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingShortDto;
 import ru.practicum.shareit.booking.dto.BookingStateDto;
+import ru.practicum.shareit.booking.dto.State;
 import ru.practicum.shareit.booking.dto.Status;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.OffsetPage;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserGuard;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static java.util.Objects.isNull;
 
 @Service
 @RequiredArgsConstructor
 public class BookingServiceImpl implements BookingService {
+    private static final String USER_NOT_FOUND = "Пользователь не найден. " +
+            "Добавление/обновление бронирования невозможно.";
+    private static final int EXPORT_FLUSH_SIZE = 500;
     private final ItemRepository itemRepository;
     private final BookingRepository bookingRepository;
     private final UserRepository userRepository;
+    private final UserGuard userGuard;
+    private final ItemLocks itemLocks;
+    private final TransactionTemplate transactionTemplate;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final ObjectMapper objectMapper;
 
     @Override
     public Booking create(BookingDto bookingDto, long userId) {
@@ -52,8 +88,10 @@ public class BookingServiceImpl implements BookingService {
                     .booker(user)
                     .status(Status.WAITING)
                     .build();
-            booking = bookingRepository.save(booking);
-            return booking;
+            return itemLocks.withLock(item.getId(), () -> {
+                checkNotOverlapping(booking);
+                return saveOrConflict(booking);
+            });
         } else {
             throw new ResponseStatusException(HttpStatus
                     .BAD_REQUEST, "Вещь недоступна для бронирования. Id = " + item.getId());
@@ -64,29 +102,77 @@ public class BookingServiceImpl implements BookingService {
     public Booking updateApprove(long bookingId, boolean approved, long userId) {
         Booking booking = getBookingOrException(bookingId);
         if (booking.getItem().getOwner().getId() == userId) {
-            if (approved) {
-                if (booking.getStatus() != Status.APPROVED) {
-                    booking.setStatus(Status.APPROVED);
+            return itemLocks.withLock(booking.getItem().getId(), () -> {
+                Status previous = booking.getStatus();
+                if (approved) {
+                    if (booking.getStatus() != Status.APPROVED) {
+                        checkNotOverlapping(booking);
+                        booking.setStatus(Status.APPROVED);
+                    } else {
+                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Текущий статус уже APPROVED.");
+                    }
+                } else if (booking.getStatus() != Status.REJECTED) {
+                    booking.setStatus(Status.REJECTED);
                 } else {
-                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Текущий статус уже APPROVED.");
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Текущий статус уже REJECTED.");
                 }
-            } else if (booking.getStatus() != Status.REJECTED) {
-                booking.setStatus(Status.REJECTED);
-            } else {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Текущий статус уже REJECTED.");
-            }
-            return bookingRepository.save(booking);
+                Booking saved = saveOrConflict(booking);
+                if (saved.getStatus() == Status.APPROVED) {
+                    bookingIntervalIndex.put(BookingMapper.bookingInterval(saved));
+                } else if (previous == Status.APPROVED) {
+                    bookingIntervalIndex.remove(saved.getItem().getId(), saved.getId());
+                }
+                return saved;
+            });
         } else {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Изменят статус может только собственник вещи.");
         }
     }
 
+    @Override
+    public List<BookingApproveResultDto> updateApproveAll(BookingApproveDto approveDto, long userId) {
+        checkUserExists(userId);
+        Status status = approveDto.getApproved() ? Status.APPROVED : Status.REJECTED;
+        Set<Long> ids = new LinkedHashSet<>(approveDto.getIds());
+        Map<Long, Booking> bookings = bookingRepository.findAllByIdInAndOwner(ids, userId).stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+        Set<Long> itemsId = bookings.values().stream()
+                .map(b -> b.getItem().getId())
+                .collect(Collectors.toSet());
+        return itemLocks.withLocks(itemsId, () -> transactionTemplate.execute(transaction -> {
+            Map<Long, BookingIntervals> approved = status == Status.APPROVED
+                    ? findApprovedIntervals(itemsId, bookings.values()) : new HashMap<>();
+            Map<Long, BookingApproveResultDto> results = new LinkedHashMap<>();
+            List<Booking> accepted = new ArrayList<>();
+            for (Long id : ids) {
+                Booking booking = bookings.get(id);
+                if (isNull(booking)) {
+                    results.put(id, new BookingApproveResultDto(id, Result.NOT_FOUND, null));
+                } else if (booking.getStatus() == status) {
+                    results.put(id, new BookingApproveResultDto(id, Result.UNCHANGED, status));
+                } else if (status == Status.APPROVED && !approved.get(booking.getItem().getId())
+                        .isFree(booking.getStart(), booking.getEnd())) {
+                    results.put(id, new BookingApproveResultDto(id, Result.CONFLICT, booking.getStatus()));
+                } else {
+                    approved.computeIfPresent(booking.getItem().getId(),
+                            (itemId, intervals) -> intervals.with(BookingMapper.bookingInterval(booking)));
+                    results.put(id, new BookingApproveResultDto(id, Result.UPDATED, status));
+                    accepted.add(booking);
+                }
+            }
+            if (!accepted.isEmpty()) {
+                updateStatus(accepted, status, userId, results, transaction);
+            }
+            return new ArrayList<>(results.values());
+        }));
+    }
+
     @Override
     public Booking getById(long bookingId, long userId) {
         Booking booking = getBookingOrException(bookingId);
         Item item = getItemOrException(booking.getItem().getId());
         if (booking.getBooker().getId() == userId || item.getOwner().getId() == userId) {
-            return bookingRepository.findById(bookingId).get();
+            return booking;
         } else {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND,
                     "Данные о бронировании доступны только авторам бронирования и владельцам вещи.");
@@ -94,29 +180,28 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
-    public List<Booking> getAllByState(BookingStateDto bookingStateDto, int from, int size) {
-        getUserOrException(bookingStateDto.getUserId());
+    public OffsetPage<BookingShortDto> getAllByState(BookingStateDto bookingStateDto, int from, int size) {
+        checkUserExists(bookingStateDto.getUserId());
         if (from >= 0 && size > 0) {
             PageRequest page = PageRequest.of(from > 0 ? from / size : 0,
                     size, Sort.by("start").descending());
             long bookerId = bookingStateDto.getUserId();
             switch (bookingStateDto.getState()) {
                 case CURRENT:
-                    return bookingRepository
-                            .findCurrentBooking(bookerId, LocalDateTime.now(), page).getContent();
+                    return OffsetPage.of(bookingRepository
+                            .findCurrentBooking(bookerId, LocalDateTime.now(), page));
                 case PAST:
-                    return bookingRepository
-                            .findByBooker_IdAndEndIsBefore(bookerId, LocalDateTime.now(), page).getContent();
+                    return OffsetPage.of(bookingRepository
+                            .findByBooker_IdAndEndIsBefore(bookerId, LocalDateTime.now(), page));
                 case FUTURE:
-                    return bookingRepository
-                            .findByBooker_IdAndStartIsAfter(bookerId, LocalDateTime.now(), page).getContent();
+                    return OffsetPage.of(bookingRepository
+                            .findByBooker_IdAndStartIsAfter(bookerId, LocalDateTime.now(), page));
                 case ALL:
-                    return bookingRepository.findByBooker_Id(bookerId, page).getContent();
+                    return OffsetPage.of(bookingRepository.findByBooker_Id(bookerId, page));
                 default:
-                    return bookingRepository
+                    return OffsetPage.of(bookingRepository
                             .findBookingByStatus(bookerId,
-                                    Status.valueOf(bookingStateDto.getState().toString()), page)
-                            .getContent();
+                                    Status.valueOf(bookingStateDto.getState().toString()), page));
             }
         } else {
             throw new ArithmeticException("Неверный индекс или количество элементов.");
@@ -124,34 +209,170 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
-    public List<Booking> getAllByOwner(BookingStateDto bookingStateDto, int from, int size) {
-        getUserOrException(bookingStateDto.getUserId());
+    public OffsetPage<BookingShortDto> getAllByOwner(BookingStateDto bookingStateDto, int from, int size) {
+        checkUserExists(bookingStateDto.getUserId());
         if (from >= 0 && size > 0) {
             PageRequest page = PageRequest.of(from > 0 ? from / size : 0, size);
             long bookerId = bookingStateDto.getUserId();
             switch (bookingStateDto.getState()) {
                 case CURRENT:
-                    return bookingRepository
-                            .findByOwnerCurrentBooking(bookerId, LocalDateTime.now(), page).getContent();
+                    return OffsetPage.of(bookingRepository
+                            .findByOwnerCurrentBooking(bookerId, LocalDateTime.now(), page));
                 case PAST:
-                    return bookingRepository
-                            .findByOwnerPastBooking(bookerId, LocalDateTime.now(), page).getContent();
+                    return OffsetPage.of(bookingRepository
+                            .findByOwnerPastBooking(bookerId, LocalDateTime.now(), page));
                 case FUTURE:
-                    return bookingRepository
-                            .findByOwnerFutureBooking(bookerId, LocalDateTime.now(), page).getContent();
+                    return OffsetPage.of(bookingRepository
+                            .findByOwnerFutureBooking(bookerId, LocalDateTime.now(), page));
                 case ALL:
-                    return bookingRepository.findByOwner(bookerId, page).getContent();
+                    return OffsetPage.of(bookingRepository.findByOwner(bookerId, page));
                 default:
-                    return bookingRepository
+                    return OffsetPage.of(bookingRepository
                             .findByOwnerByStatus(bookerId,
-                                    Status.valueOf(bookingStateDto.getState().toString()), page)
-                            .getContent();
+                                    Status.valueOf(bookingStateDto.getState().toString()), page));
             }
         } else {
             throw new ArithmeticException("Неверный индекс или количество элементов.");
         }
     }
 
+    @Override
+    public CursorPage<BookingShortDto> getAllByStateAfter(BookingStateDto bookingStateDto, String cursor, int size) {
+        checkUserExists(bookingStateDto.getUserId());
+        if (size > 0) {
+            Cursor after = Cursor.decode(cursor, Cursor.descending());
+            StateFilter filter = StateFilter.of(bookingStateDto.getState(), LocalDateTime.now());
+            Slice<BookingShortDto> bookings = bookingRepository.findByBookerAfterCursor(bookingStateDto.getUserId(),
+                    filter.statuses, filter.startAfter, filter.startUntil, filter.endFrom, filter.endBefore,
+                    after.getPosition(), after.getId(), PageRequest.of(0, size));
+            return CursorPage.of(bookings, b -> new Cursor(b.getStart(), b.getId()));
+        } else {
+            throw new ArithmeticException("Неверный индекс или количество элементов.");
+        }
+    }
+
+    @Override
+    public CursorPage<BookingShortDto> getAllByOwnerAfter(BookingStateDto bookingStateDto, String cursor, int size) {
+        checkUserExists(bookingStateDto.getUserId());
+        if (size > 0) {
+            Cursor after = Cursor.decode(cursor, Cursor.descending());
+            StateFilter filter = StateFilter.of(bookingStateDto.getState(), LocalDateTime.now());
+            Slice<BookingShortDto> bookings = bookingRepository.findByOwnerAfterCursor(bookingStateDto.getUserId(),
+                    filter.statuses, filter.startAfter, filter.startUntil, filter.endFrom, filter.endBefore,
+                    after.getPosition(), after.getId(), PageRequest.of(0, size));
+            return CursorPage.of(bookings, b -> new Cursor(b.getStart(), b.getId()));
+        } else {
+            throw new ArithmeticException("Неверный индекс или количество элементов.");
+        }
+    }
+
+    @Override
+    public void checkExportAllowed(BookingStateDto bookingStateDto) {
+        checkUserExists(bookingStateDto.getUserId());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportByOwner(BookingStateDto bookingStateDto, OutputStream out) throws IOException {
+        checkUserExists(bookingStateDto.getUserId());
+        StateFilter filter = StateFilter.of(bookingStateDto.getState(), LocalDateTime.now());
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .setRootValueSeparator(null);
+             Stream<BookingShortDto> bookings = bookingRepository.streamByOwner(bookingStateDto.getUserId(),
+                     filter.statuses, filter.startAfter, filter.startUntil, filter.endFrom, filter.endBefore)) {
+            int written = 0;
+            for (Iterator<BookingShortDto> it = bookings.iterator(); it.hasNext(); ) {
+                writer.writeValue(generator, it.next());
+                generator.writeRaw('\n');
+                if (++written % EXPORT_FLUSH_SIZE == 0) {
+                    generator.flush();
+                }
+            }
+        }
+    }
+
+    private void checkNotOverlapping(Booking booking) {
+        if (bookingRepository.existsOverlapping(booking.getItem().getId(), Status.APPROVED,
+                booking.getStart(), booking.getEnd(), isNull(booking.getId()) ? 0L : booking.getId())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Вещь уже забронирована на эти даты.");
+        }
+    }
+
+    private Map<Long, BookingIntervals> findApprovedIntervals(Set<Long> itemsId, Collection<Booking> bookings) {
+        Map<Long, BookingIntervals> approved = new HashMap<>();
+        if (bookings.isEmpty()) {
+            return approved;
+        }
+        LocalDateTime from = bookings.stream().map(Booking::getStart).min(Comparator.naturalOrder()).get();
+        LocalDateTime to = bookings.stream().map(Booking::getEnd).max(Comparator.naturalOrder()).get();
+        Map<Long, List<BookingInterval>> intervals = bookingRepository
+                .findIntervals(itemsId, Status.APPROVED, from, to).stream()
+                .collect(Collectors.groupingBy(BookingInterval::getItemId));
+        for (Long itemId : itemsId) {
+            approved.put(itemId, BookingIntervals.of(intervals.getOrDefault(itemId, List.of())));
+        }
+        return approved;
+    }
+
+    private void updateStatus(List<Booking> accepted, Status status, long userId,
+                              Map<Long, BookingApproveResultDto> results, TransactionStatus transaction) {
+        List<Long> ids = accepted.stream().map(Booking::getId).collect(Collectors.toList());
+        Map<Status, List<Long>> idsByStatus = accepted.stream()
+                .collect(Collectors.groupingBy(Booking::getStatus, LinkedHashMap::new,
+                        Collectors.mapping(Booking::getId, Collectors.toList())));
+        int updated = 0;
+        try {
+            for (Map.Entry<Status, List<Long>> entry : idsByStatus.entrySet()) {
+                updated += bookingRepository.updateStatus(entry.getValue(), entry.getKey(), status, userId);
+            }
+        } catch (DataIntegrityViolationException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Вещь уже забронирована на эти даты.");
+        }
+        if (updated != accepted.size()) {
+            transaction.setRollbackOnly();
+            Map<Long, Status> current = bookingRepository.findAllByIdInAndOwner(ids, userId).stream()
+                    .collect(Collectors.toMap(Booking::getId, Booking::getStatus));
+            for (Booking booking : accepted) {
+                Status actual = current.get(booking.getId());
+                results.put(booking.getId(), new BookingApproveResultDto(booking.getId(), Result.CONFLICT,
+                        actual == status ? booking.getStatus() : actual));
+            }
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    updateIndex(accepted, status);
+                }
+            });
+        } else {
+            updateIndex(accepted, status);
+        }
+    }
+
+    private void updateIndex(List<Booking> accepted, Status status) {
+        for (Booking booking : accepted) {
+            if (status == Status.APPROVED) {
+                bookingIntervalIndex.put(BookingMapper.bookingInterval(booking));
+            } else if (booking.getStatus() == Status.APPROVED) {
+                bookingIntervalIndex.remove(booking.getItem().getId(), booking.getId());
+            }
+        }
+    }
+
+    private Booking saveOrConflict(Booking booking) {
+        try {
+            return bookingRepository.save(booking);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Бронирование было изменено параллельно.");
+        } catch (DataIntegrityViolationException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Вещь уже забронирована на эти даты.");
+        }
+    }
+
     private Item getItemOrException(long itemId) {
         return itemRepository.findById(itemId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Вещь не найдена. " +
@@ -166,7 +387,39 @@ public class BookingServiceImpl implements BookingService {
 
     private User getUserOrException(long userId) {
         return userRepository.findById(userId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Пользователь не найден. " +
-                        "Добавление/обновление бронирования невозможно."));
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, USER_NOT_FOUND));
+    }
+
+    private void checkUserExists(long userId) {
+        userGuard.checkExists(userId, USER_NOT_FOUND);
+    }
+
+    private static class StateFilter {
+        private Collection<Status> statuses = List.of(Status.values());
+        private LocalDateTime startAfter = Cursor.MIN_POSITION;
+        private LocalDateTime startUntil = Cursor.MAX_POSITION;
+        private LocalDateTime endFrom = Cursor.MIN_POSITION;
+        private LocalDateTime endBefore = Cursor.MAX_POSITION;
+
+        private static StateFilter of(State state, LocalDateTime now) {
+            StateFilter filter = new StateFilter();
+            switch (state) {
+                case ALL:
+                    break;
+                case CURRENT:
+                    filter.startUntil = now;
+                    filter.endFrom = now;
+                    break;
+                case PAST:
+                    filter.endBefore = now;
+                    break;
+                case FUTURE:
+                    filter.startAfter = now;
+                    break;
+                default:
+                    filter.statuses = List.of(Status.valueOf(state.name()));
+            }
+            return filter;
+        }
     }
 }
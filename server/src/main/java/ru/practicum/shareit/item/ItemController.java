@@ -1,16 +1,26 @@
 package ru.practicum.shareit.item;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CommentFromRequestDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemWithDateDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemService;
 
+import javax.validation.ConstraintViolationException;
 import javax.validation.Valid;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
+@Validated
 @RestController
 @RequestMapping("/items")
 public class ItemController {
@@ -27,6 +37,12 @@ public class ItemController {
         return itemService.create(itemDto, userId);
     }
 
+    @PostMapping("/batch")
+    public List<ItemDto> createAll(@RequestHeader(REQUEST_HEADER) Long userId,
+                                   @RequestBody List<@Valid ItemDto> items) {
+        return itemService.createAll(items, userId);
+    }
+
     @PatchMapping("{id}")
     public Item update(@RequestHeader(REQUEST_HEADER) Long userId,
                        @RequestBody Item item,
@@ -35,10 +51,17 @@ public class ItemController {
     }
 
     @GetMapping
-    public List<ItemWithDateDto> getAll(@RequestHeader(REQUEST_HEADER) Long userId,
-                                        @RequestParam(defaultValue = "0") int from,
-                                        @RequestParam(defaultValue = "10") int size) {
-        return itemService.getAll(userId, from, size);
+    public ResponseEntity<List<ItemWithDateDto>> getAll(@RequestHeader(REQUEST_HEADER) Long userId,
+                                                        @RequestParam(defaultValue = "0") int from,
+                                                        @RequestParam(defaultValue = "10") int size) {
+        return itemService.getAll(userId, from, size).toResponseEntity();
+    }
+
+    @GetMapping(params = "cursor")
+    public ResponseEntity<List<ItemWithDateDto>> getAllAfter(@RequestHeader(REQUEST_HEADER) Long userId,
+                                                             @RequestParam String cursor,
+                                                             @RequestParam(defaultValue = "10") int size) {
+        return itemService.getAllAfter(userId, cursor, size).toResponseEntity();
     }
 
     @GetMapping("{id}")
@@ -48,10 +71,17 @@ public class ItemController {
     }
 
     @GetMapping("/search")
-    public List<ItemDto> search(@RequestParam String text,
-                                @RequestParam(defaultValue = "0") int from,
-                                @RequestParam(defaultValue = "10") int size) {
-        return itemService.searchItem(text, from, size);
+    public ResponseEntity<List<ItemDto>> search(@RequestParam String text,
+                                                @RequestParam(defaultValue = "0") int from,
+                                                @RequestParam(defaultValue = "10") int size) {
+        return itemService.searchItem(text, from, size).toResponseEntity();
+    }
+
+    @GetMapping("{id}/availability")
+    public ItemAvailabilityDto getAvailability(@PathVariable("id") long itemId,
+                                               @RequestParam @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime from,
+                                               @RequestParam @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime to) {
+        return itemService.getAvailability(itemId, from, to);
     }
 
     @PostMapping("/{id}/comment")
@@ -60,4 +90,10 @@ public class ItemController {
                                     @Valid @RequestBody CommentFromRequestDto comment) {
         return itemService.createComment(userId, itemId, comment);
     }
+
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler
+    public Map<String, String> handleValidationError(final ConstraintViolationException e) {
+        return Map.of("error", e.getMessage());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.practicum.shareit.booking.dto.BookingSlot;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ItemAvailabilityDto {
+    private long itemId;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private List<BookingSlot> busy;
+    private List<FreeSlot> free;
+
+    @Data
+    @AllArgsConstructor
+    public static class FreeSlot {
+        private LocalDateTime start;
+        private LocalDateTime end;
+    }
+}
@@ -1,10 +1,18 @@
 package ru.practicum.shareit.item.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.item.model.Comment;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
     Set<Comment> findCommentsByItem_Id(long itemId);
+
+    @Query(value = "select c from Comment c " +
+            "join fetch c.author " +
+            "where c.item.id in ?1")
+    List<Comment> findCommentsByItem_IdIn(Collection<Long> itemsId);
 }
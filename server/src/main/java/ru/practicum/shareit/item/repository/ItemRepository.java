@@ -1,17 +1,42 @@
 package ru.practicum.shareit.item.repository;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.item.model.Item;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
-    Page<Item> findByOwnerId(long userId, Pageable page);
+    @Query(value = "select i from Item i " +
+            "where i.owner.id = ?1")
+    Slice<Item> findByOwnerId(long userId, Pageable page);
 
-    Page<Item> findAllByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndAvailableIsTrue(
-            String subName, String subDescription, Pageable page);
+    @Query(value = "select i from Item i " +
+            "where i.owner.id = ?1 and i.id > ?2 " +
+            "order by i.id")
+    Slice<Item> findByOwnerAfterCursor(long ownerId, long cursorId, Pageable page);
+
+    @Query(value = "select i from Item i " +
+            "where i.available = true " +
+            "and (lower(i.name) like concat('%', lower(?1), '%') escape '\\' " +
+            "or lower(i.description) like concat('%', lower(?1), '%') escape '\\') " +
+            "order by case " +
+            "when lower(i.name) like lower(?1) escape '\\' then 0 " +
+            "when lower(i.name) like concat(lower(?1), '%') escape '\\' then 1 " +
+            "when lower(i.name) like concat('%', lower(?1), '%') escape '\\' then 2 " +
+            "else 3 end, i.id")
+    Slice<Item> search(String text, Pageable page);
+
+    @Query(value = "select i.id from Item i " +
+            "where i.owner.id = ?1")
+    List<Long> findIdsByOwnerId(long ownerId);
 
     List<Item> findByRequestId(long requestId);
+
+    @Query(value = "select i from Item i " +
+            "where i.request.id in ?1")
+    List<Item> findByRequestIdIn(Collection<Long> requestsId);
 }
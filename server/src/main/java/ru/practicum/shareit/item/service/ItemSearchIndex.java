@@ -0,0 +1,236 @@
+package ru.practicum.shareit.item.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.OffsetPage;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+public class ItemSearchIndex {
+    private static final int WARM_UP_PAGE_SIZE = 1000;
+    private static final long[] EMPTY = new long[0];
+    private static final int GRAM = 3;
+
+    private final ItemRepository itemRepository;
+    private final boolean enabled;
+    private final Map<String, long[]> postings = new ConcurrentHashMap<>();
+    private final Map<Long, Document> documents = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private volatile boolean ready;
+
+    public ItemSearchIndex(ItemRepository itemRepository,
+                           MeterRegistry meterRegistry,
+                           @Value("${shareit-server.search.index.enabled:false}") boolean enabled) {
+        this.itemRepository = itemRepository;
+        this.enabled = enabled;
+        this.hits = meterRegistry.counter("items.search.index.requests", "result", "hit");
+        this.misses = meterRegistry.counter("items.search.index.requests", "result", "miss");
+        Gauge.builder("items.search.index.documents", documents, Map::size).register(meterRegistry);
+        Gauge.builder("items.search.index.tokens", postings, Map::size).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        PageRequest page = PageRequest.of(0, WARM_UP_PAGE_SIZE, Sort.by("id"));
+        Page<Item> items;
+        do {
+            items = itemRepository.findAll(page);
+            for (Item item : items) {
+                index(item, true);
+            }
+            page = page.next();
+        } while (items.hasNext());
+        ready = true;
+        log.info("Индекс поиска вещей прогрет: {} вещей, {} триграмм.", documents.size(), postings.size());
+    }
+
+    public Optional<OffsetPage<ItemDto>> search(String text, int from, int size) {
+        String query = text.toLowerCase(Locale.ROOT);
+        if (!ready || query.length() < GRAM) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        List<long[]> matched = grams(query).stream()
+                .map(gram -> postings.getOrDefault(gram, EMPTY))
+                .sorted(Comparator.comparingInt(ids -> ids.length))
+                .collect(Collectors.toList());
+        long[] ids = null;
+        for (long[] posting : matched) {
+            ids = ids == null ? posting : intersect(ids, posting);
+            if (ids.length == 0) {
+                return Optional.of(new OffsetPage<>(new ArrayList<>(), false));
+            }
+        }
+        List<ItemDto> found = new ArrayList<>();
+        for (long id : ids) {
+            Document document = documents.get(id);
+            if (document != null && Boolean.TRUE.equals(document.item.getAvailable()) && document.contains(query)) {
+                found.add(document.item);
+            }
+        }
+        long offset = (long) (from / size) * size;
+        List<ItemDto> content = found.stream()
+                .sorted(Comparator.comparingInt((ItemDto i) -> rank(i, query)).thenComparingLong(ItemDto::getId))
+                .skip(offset)
+                .limit(size)
+                .map(ItemSearchIndex::copyOf)
+                .collect(Collectors.toList());
+        return Optional.of(new OffsetPage<>(content, found.size() > offset + size));
+    }
+
+    public void put(Item item) {
+        if (enabled) {
+            index(item, false);
+        }
+    }
+
+    public synchronized void removeOwner(long ownerId) {
+        if (!enabled) {
+            return;
+        }
+        List<Long> ids = documents.entrySet().stream()
+                .filter(e -> e.getValue().ownerId == ownerId)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        for (Long id : ids) {
+            unindex(documents.remove(id), id);
+        }
+    }
+
+    private synchronized void index(Item item, boolean onlyIfAbsent) {
+        long id = item.getId();
+        Document previous = documents.get(id);
+        if (previous != null && onlyIfAbsent) {
+            return;
+        }
+        Document document = new Document(ItemMapper.toItemDto(item), item.getOwner().getId());
+        unindex(previous, id);
+        for (String gram : document.grams) {
+            postings.merge(gram, new long[]{id}, ItemSearchIndex::union);
+        }
+        documents.put(id, document);
+    }
+
+    private void unindex(Document document, long id) {
+        if (document == null) {
+            return;
+        }
+        for (String gram : document.grams) {
+            postings.computeIfPresent(gram, (t, ids) -> {
+                long[] rest = Arrays.stream(ids).filter(i -> i != id).toArray();
+                return rest.length == 0 ? null : rest;
+            });
+        }
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static ItemDto copyOf(ItemDto item) {
+        return ItemDto.builder()
+                .id(item.getId())
+                .name(item.getName())
+                .description(item.getDescription())
+                .available(item.getAvailable())
+                .requestId(item.getRequestId())
+                .build();
+    }
+
+    private static int rank(ItemDto item, String query) {
+        String name = item.getName().toLowerCase(Locale.ROOT);
+        if (name.equals(query)) {
+            return 0;
+        } else if (name.startsWith(query)) {
+            return 1;
+        } else if (name.contains(query)) {
+            return 2;
+        }
+        return 3;
+    }
+
+    private static long[] union(long[] a, long[] b) {
+        long[] result = new long[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < a.length || j < b.length) {
+            long next;
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                next = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                next = b[j++];
+            } else {
+                next = a[i++];
+                j++;
+            }
+            result[k++] = next;
+        }
+        return Arrays.copyOf(result, k);
+    }
+
+    private static long[] intersect(long[] a, long[] b) {
+        long[] result = new long[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (b[j] < a[i]) {
+                j++;
+            } else {
+                result[k++] = a[i++];
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, k);
+    }
+
+    private static class Document {
+        private final ItemDto item;
+        private final long ownerId;
+        private final String name;
+        private final String description;
+        private final Set<String> grams;
+
+        private Document(ItemDto item, long ownerId) {
+            this.item = item;
+            this.ownerId = ownerId;
+            this.name = item.getName().toLowerCase(Locale.ROOT);
+            this.description = item.getDescription().toLowerCase(Locale.ROOT);
+            this.grams = grams(name);
+            this.grams.addAll(grams(description));
+        }
+
+        private boolean contains(String query) {
+            return name.contains(query) || description.contains(query);
+        }
+    }
+}
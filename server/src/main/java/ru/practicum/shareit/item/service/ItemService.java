@@ -2,22 +2,32 @@ package ru.practicum.shareit.item.service;
 
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CommentFromRequestDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemWithDateDto;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.OffsetPage;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemService {
     ItemDto create(ItemDto itemDto, long userId);
 
+    List<ItemDto> createAll(List<ItemDto> itemsDto, long userId);
+
     Item update(Item item, long userId, long itemId);
 
-    List<ItemWithDateDto> getAll(long id, int from, int size);
+    OffsetPage<ItemWithDateDto> getAll(long id, int from, int size);
+
+    CursorPage<ItemWithDateDto> getAllAfter(long id, String cursor, int size);
 
     ItemWithDateDto getById(long userId, long itemId);
 
-    List<ItemDto> searchItem(String query, int from, int size);
+    OffsetPage<ItemDto> searchItem(String query, int from, int size);
 
     CommentDto createComment(long userId, long itemId, CommentFromRequestDto comment);
+
+    ItemAvailabilityDto getAvailability(long itemId, LocalDateTime from, LocalDateTime to);
 }
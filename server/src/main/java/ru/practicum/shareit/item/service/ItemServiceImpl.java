@@ -4,15 +4,23 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.EscapeCharacter;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.server.ResponseStatusException;
+import ru.practicum.shareit.booking.dto.BookingSlot;
 import ru.practicum.shareit.booking.dto.Status;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingIntervalIndex;
+import ru.practicum.shareit.booking.service.BookingIntervals;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CommentFromRequestDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemWithDateDto;
 import ru.practicum.shareit.item.mapper.CommentMapper;
@@ -21,12 +29,18 @@ import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.OffsetPage;
+import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.RequestRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserGuard;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static java.util.Objects.nonNull;
@@ -35,12 +49,18 @@ import static java.util.Objects.nonNull;
 @Service
 @RequiredArgsConstructor
 public class ItemServiceImpl implements ItemService {
+    private static final String USER_NOT_FOUND = "Пользователь не найден. " +
+            "Добавление/обновление вещи невозможно.";
+    private static final int MAX_BATCH_SIZE = 1000;
 
     private final UserRepository userRepository;
     private final ItemRepository itemRepository;
     private final BookingRepository bookingRepository;
     private final CommentRepository commentRepository;
     private final RequestRepository requestRepository;
+    private final ItemSearchIndex itemSearchIndex;
+    private final UserGuard userGuard;
+    private final BookingIntervalIndex bookingIntervalIndex;
 
     @Override
     public ItemDto create(ItemDto itemDto, long userId) {
@@ -51,13 +71,54 @@ public class ItemServiceImpl implements ItemService {
             item.setRequest(requestRepository.findById(requestId).get());
         }
         item = itemRepository.save(item);
+        itemSearchIndex.put(item);
         log.info("Создана вещь {}.", item.getName());
         return ItemMapper.toItemDto(item);
     }
 
+    @Override
+    @Transactional
+    public List<ItemDto> createAll(List<ItemDto> itemsDto, long userId) {
+        if (itemsDto.isEmpty() || itemsDto.size() > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Неверное количество вещей в пакете: " + itemsDto.size());
+        }
+        User user = getUserOrException(userId);
+        Set<Long> requestsId = itemsDto.stream()
+                .map(ItemDto::getRequestId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, ItemRequest> requests = requestRepository.findAllById(requestsId).stream()
+                .collect(Collectors.toMap(ItemRequest::getId, Function.identity()));
+        List<Item> items = new ArrayList<>(itemsDto.size());
+        for (ItemDto itemDto : itemsDto) {
+            Item item = ItemMapper.toItem(itemDto, user);
+            Long requestId = itemDto.getRequestId();
+            if (nonNull(requestId)) {
+                item.setRequest(Optional.ofNullable(requests.get(requestId))
+                        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                                "Несуществующий запрос: id = " + requestId)));
+            }
+            items.add(item);
+        }
+        List<Item> saved = itemRepository.saveAll(items);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    saved.forEach(itemSearchIndex::put);
+                }
+            });
+        } else {
+            saved.forEach(itemSearchIndex::put);
+        }
+        log.info("Создано {} вещей пользователя с id = {}.", saved.size(), userId);
+        return ItemMapper.toItemDto(saved);
+    }
+
     @Override
     public Item update(Item item, long userId, long itemId) {
-        getUserOrException(userId);
+        checkUserExists(userId);
         if (itemRepository.getReferenceById(itemId).getOwner().getId() != userId) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND,
                     "Невозможно обновить вещь невалидному пользователю.");
@@ -73,27 +134,35 @@ public class ItemServiceImpl implements ItemService {
             updateItem.setAvailable(item.getAvailable());
         }
         log.info("Обновление вещи {}.", updateItem.getName());
-        return itemRepository.save(updateItem);
+        updateItem = itemRepository.save(updateItem);
+        itemSearchIndex.put(updateItem);
+        return updateItem;
     }
 
     @Override
-    public List<ItemWithDateDto> getAll(long id, int from, int size) {
+    public OffsetPage<ItemWithDateDto> getAll(long id, int from, int size) {
         if (from >= 0 && size > 0) {
             PageRequest page = PageRequest.of(from > 0 ? from / size : 0, size,
                     Sort.by("id").ascending());
-            List<ItemWithDateDto> items = itemRepository.findByOwnerId(id, page)
-                    .map(ItemMapper::toItemWithDate)
-                    .getContent();
-            List<Long> itemsId = items.stream().map(ItemWithDateDto::getId).collect(Collectors.toList());
-            List<Booking> bookings = bookingRepository.findAllByItem_IdInAndStatus(itemsId, Status.APPROVED);
-            for (ItemWithDateDto item : items) {
-                setDateToItem(bookings, item);
-                Set<Comment> comments = commentRepository.findCommentsByItem_Id(item.getId());
-                if (!comments.isEmpty()) {
-                    item.setComments(comments.stream().map(CommentMapper::commentDto).collect(Collectors.toSet()));
-                }
-            }
+            OffsetPage<ItemWithDateDto> items = OffsetPage.of(itemRepository.findByOwnerId(id, page)
+                    .map(ItemMapper::toItemWithDate));
             log.info("Получение списка вещей пользователя с id = {}.", id);
+            setDatesAndCommentsToItems(items.getContent());
+            return items;
+        } else {
+            throw new ArithmeticException("Неверный индекс или количество элементов.");
+        }
+    }
+
+    @Override
+    public CursorPage<ItemWithDateDto> getAllAfter(long id, String cursor, int size) {
+        if (size > 0) {
+            Cursor after = Cursor.decode(cursor, Cursor.ascending());
+            CursorPage<ItemWithDateDto> items = CursorPage.of(itemRepository
+                            .findByOwnerAfterCursor(id, after.getId(), PageRequest.of(0, size)),
+                    i -> new Cursor(null, i.getId())).map(ItemMapper::toItemWithDate);
+            log.info("Получение списка вещей пользователя с id = {} после курсора {}.", id, cursor);
+            setDatesAndCommentsToItems(items.getContent());
             return items;
         } else {
             throw new ArithmeticException("Неверный индекс или количество элементов.");
@@ -105,9 +174,8 @@ public class ItemServiceImpl implements ItemService {
         Item item = itemRepository.findById(itemId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Вещь не найдена."));
         ItemWithDateDto itemWithDate = ItemMapper.toItemWithDate(item);
-        List<Booking> bookings = bookingRepository.findAllByItem_IdAndStatus(itemId, Status.APPROVED);
         if (item.getOwner().getId() == userId) {
-            setDateToItem(bookings, itemWithDate);
+            setDatesToItems(List.of(itemId), List.of(itemWithDate));
         }
         Set<Comment> comments = commentRepository.findCommentsByItem_Id(itemId);
         if (!comments.isEmpty()) {
@@ -120,16 +188,19 @@ public class ItemServiceImpl implements ItemService {
     }
 
     @Override
-    public List<ItemDto> searchItem(String query, int from, int size) {
+    public OffsetPage<ItemDto> searchItem(String query, int from, int size) {
         if (from >= 0 && size > 0) {
             PageRequest page = PageRequest.of(from > 0 ? from / size : 0, size);
             log.info("Поиск вещи, содержащей {}.", query);
             if (query.isEmpty()) {
-                return new ArrayList<>();
+                return new OffsetPage<>(new ArrayList<>(), false);
             }
-            return ItemMapper.toItemDto(itemRepository
-                    .findAllByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndAvailableIsTrue(query,
-                            query, page).getContent());
+            Optional<OffsetPage<ItemDto>> indexed = itemSearchIndex.search(query, from, size);
+            if (indexed.isPresent()) {
+                return indexed.get();
+            }
+            return OffsetPage.of(itemRepository.search(EscapeCharacter.DEFAULT.escape(query), page))
+                    .map(ItemMapper::toItemDto);
         } else {
             throw new ArithmeticException("Неверный индекс или количество элементов.");
         }
@@ -155,27 +226,68 @@ public class ItemServiceImpl implements ItemService {
         }
     }
 
+    @Override
+    public ItemAvailabilityDto getAvailability(long itemId, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Неверный интервал дат.");
+        }
+        itemRepository.findById(itemId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Вещь не найдена."));
+        List<BookingSlot> busy = bookingRepository.findSlots(itemId, List.of(Status.APPROVED, Status.WAITING),
+                from, to);
+        List<ItemAvailabilityDto.FreeSlot> free = new ArrayList<>();
+        LocalDateTime freeFrom = from;
+        for (BookingSlot slot : busy) {
+            if (slot.getStart().isBefore(from)) {
+                slot.setStart(from);
+            }
+            if (slot.getEnd().isAfter(to)) {
+                slot.setEnd(to);
+            }
+            if (slot.getStart().isAfter(freeFrom)) {
+                free.add(new ItemAvailabilityDto.FreeSlot(freeFrom, slot.getStart()));
+            }
+            if (slot.getEnd().isAfter(freeFrom)) {
+                freeFrom = slot.getEnd();
+            }
+        }
+        if (freeFrom.isBefore(to)) {
+            free.add(new ItemAvailabilityDto.FreeSlot(freeFrom, to));
+        }
+        log.info("Получение занятости вещи с id = {} с {} по {}.", itemId, from, to);
+        return new ItemAvailabilityDto(itemId, from, to, busy, free);
+    }
+
     private User getUserOrException(long userId) {
         return userRepository.findById(userId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Пользователь не найден. " +
-                        "Добавление/обновление вещи невозможно."));
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, USER_NOT_FOUND));
+    }
+
+    private void checkUserExists(long userId) {
+        userGuard.checkExists(userId, USER_NOT_FOUND);
+    }
+
+    private void setDatesAndCommentsToItems(List<ItemWithDateDto> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        List<Long> itemsId = items.stream().map(ItemWithDateDto::getId).collect(Collectors.toList());
+        setDatesToItems(itemsId, items);
+        Map<Long, Set<CommentDto>> comments = commentRepository.findCommentsByItem_IdIn(itemsId).stream()
+                .collect(Collectors.groupingBy(c -> c.getItem().getId(),
+                        Collectors.mapping(CommentMapper::commentDto, Collectors.toSet())));
+        for (ItemWithDateDto item : items) {
+            item.setComments(comments.get(item.getId()));
+        }
     }
 
-    private void setDateToItem(List<Booking> bookings, ItemWithDateDto item) {
-        Booking lastBooking = bookings.stream()
-                .filter(b -> Objects.equals(b.getItem().getId(), item.getId()))
-                .filter(b -> b.getStart().isBefore(LocalDateTime.now()))
-                .sorted(Comparator.comparing(Booking::getStart).reversed())
-                .max(Comparator.comparing(Booking::getEnd)).orElse(null);
-        if (nonNull(lastBooking)) {
-            item.setLastBooking(BookingMapper.bookingItemDto(lastBooking));
-        }
-        Booking nextBooking = bookings.stream()
-                .filter(b -> Objects.equals(b.getItem().getId(), item.getId()))
-                .filter(b -> b.getStart().isAfter(LocalDateTime.now()))
-                .min(Comparator.comparing(Booking::getStart)).orElse(null);
-        if (nonNull(nextBooking)) {
-            item.setNextBooking(BookingMapper.bookingItemDto(nextBooking));
+    private void setDatesToItems(List<Long> itemsId, List<ItemWithDateDto> items) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, BookingIntervals> intervals = bookingIntervalIndex.get(itemsId);
+        for (ItemWithDateDto item : items) {
+            BookingIntervals itemIntervals = intervals.get(item.getId());
+            item.setLastBooking(itemIntervals.last(now).map(BookingMapper::bookingItemDto).orElse(null));
+            item.setNextBooking(itemIntervals.next(now).map(BookingMapper::bookingItemDto).orElse(null));
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,51 @@
+package ru.practicum.shareit.pagination;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+@Getter
+@AllArgsConstructor
+public class Cursor {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final LocalDateTime MIN_POSITION = LocalDateTime.of(1, 1, 1, 0, 0);
+    public static final LocalDateTime MAX_POSITION = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime position;
+    private final long id;
+
+    public static Cursor descending() {
+        return new Cursor(MAX_POSITION, Long.MAX_VALUE);
+    }
+
+    public static Cursor ascending() {
+        return new Cursor(null, 0);
+    }
+
+    public static Cursor decode(String value, Cursor first) {
+        if (value == null || value.isBlank()) {
+            return first;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(SEPARATOR);
+            String position = decoded.substring(0, separator);
+            return new Cursor(position.isEmpty() ? null : LocalDateTime.parse(position),
+                    Long.parseLong(decoded.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Неверный курсор: " + value);
+        }
+    }
+
+    public String encode() {
+        String value = (position == null ? "" : position.toString()) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
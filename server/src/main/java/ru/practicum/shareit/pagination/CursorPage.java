@@ -0,0 +1,37 @@
+package ru.practicum.shareit.pagination;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Getter
+@AllArgsConstructor
+public class CursorPage<T> {
+    private final List<T> content;
+    private final String nextCursor;
+
+    public static <T> CursorPage<T> of(Slice<T> slice, Function<T, Cursor> cursor) {
+        List<T> content = slice.getContent();
+        String next = slice.hasNext() && !content.isEmpty()
+                ? cursor.apply(content.get(content.size() - 1)).encode()
+                : null;
+        return new CursorPage<>(content, next);
+    }
+
+    public <R> CursorPage<R> map(Function<T, R> mapper) {
+        return new CursorPage<>(content.stream().map(mapper).collect(Collectors.toList()), nextCursor);
+    }
+
+    public ResponseEntity<List<T>> toResponseEntity() {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (nextCursor != null) {
+            response.header(Cursor.NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return response.body(content);
+    }
+}
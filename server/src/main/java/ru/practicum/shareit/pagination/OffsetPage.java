@@ -0,0 +1,39 @@
+package ru.practicum.shareit.pagination;
+
+import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@AllArgsConstructor
+public class OffsetPage<T> {
+    public static final String HAS_NEXT_HEADER = "X-Has-Next";
+
+    private final List<T> content;
+    private final boolean next;
+
+    public static <T> OffsetPage<T> of(Slice<T> slice) {
+        return new OffsetPage<>(slice.getContent(), slice.hasNext());
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public boolean hasNext() {
+        return next;
+    }
+
+    public <R> OffsetPage<R> map(Function<T, R> mapper) {
+        return new OffsetPage<>(content.stream().map(mapper).collect(Collectors.toList()), next);
+    }
+
+    public ResponseEntity<List<T>> toResponseEntity() {
+        return ResponseEntity.ok()
+                .header(HAS_NEXT_HEADER, String.valueOf(next))
+                .body(content);
+    }
+}
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.request;
 
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.model.ItemRequest;
@@ -36,9 +37,16 @@ public class ItemRequestController {
     }
 
     @GetMapping("/all")
-    public List<ItemRequestDto> getAll(@RequestHeader(REQUEST_HEADER) Long userId,
-                                       @RequestParam(defaultValue = "0") int from,
-                                       @RequestParam(defaultValue = "10") int size) {
-        return itemRequestService.getAll(userId, from, size);
+    public ResponseEntity<List<ItemRequestDto>> getAll(@RequestHeader(REQUEST_HEADER) Long userId,
+                                                       @RequestParam(defaultValue = "0") int from,
+                                                       @RequestParam(defaultValue = "10") int size) {
+        return itemRequestService.getAll(userId, from, size).toResponseEntity();
     }
-}
\ No newline at end of file
+
+    @GetMapping(path = "/all", params = "cursor")
+    public ResponseEntity<List<ItemRequestDto>> getAllAfter(@RequestHeader(REQUEST_HEADER) Long userId,
+                                                            @RequestParam String cursor,
+                                                            @RequestParam(defaultValue = "10") int size) {
+        return itemRequestService.getAllAfter(userId, cursor, size).toResponseEntity();
+    }
+}
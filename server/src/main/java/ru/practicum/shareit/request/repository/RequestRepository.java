@@ -1,14 +1,32 @@
 package ru.practicum.shareit.request.repository;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.request.model.ItemRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface RequestRepository extends JpaRepository<ItemRequest, Long> {
-    List<ItemRequest> findByRequestorId(long userId);
+    @Query(value = "select r from ItemRequest r " +
+            "where r.requestor.id = ?1 " +
+            "order by r.created desc, r.id desc")
+    List<ItemRequest> findByRequestorIdOrderByCreatedDesc(long userId);
 
-    Page<ItemRequest> findAll(Pageable page);
+    @Query(value = "select r.id from ItemRequest r " +
+            "where r.requestor.id = ?1")
+    List<Long> findIdsByRequestorId(long userId);
+
+    @Query(value = "select r from ItemRequest r " +
+            "where r.requestor.id <> ?1")
+    Slice<ItemRequest> findOthers(long userId, Pageable page);
+
+    @Query(value = "select r from ItemRequest r " +
+            "where r.requestor.id <> ?1 " +
+            "and (r.created < ?2 or (r.created = ?2 and r.id < ?3)) " +
+            "order by r.created desc, r.id desc")
+    Slice<ItemRequest> findOthersAfterCursor(long userId, LocalDateTime cursorCreated, long cursorId,
+                                             Pageable page);
 }
\ No newline at end of file
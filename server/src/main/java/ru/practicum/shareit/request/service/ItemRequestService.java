@@ -1,5 +1,7 @@
 package ru.practicum.shareit.request.service;
 
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.OffsetPage;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.model.ItemRequest;
 
@@ -12,5 +14,7 @@ public interface ItemRequestService {
 
     List<ItemRequestDto> getAllByRequestor(long userId);
 
-    List<ItemRequestDto> getAll(long userId, int from, int size);
+    OffsetPage<ItemRequestDto> getAll(long userId, int from, int size);
+
+    CursorPage<ItemRequestDto> getAllAfter(long userId, String cursor, int size);
 }
\ No newline at end of file
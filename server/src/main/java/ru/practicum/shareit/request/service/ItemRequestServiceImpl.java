@@ -7,30 +7,36 @@ import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.OffsetPage;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.mapper.RequestMapper;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.RequestRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserGuard;
 
 import java.time.LocalDateTime;
-import java.util.Comparator;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ItemRequestServiceImpl implements ItemRequestService {
+    private static final String USER_NOT_FOUND = "Пользователь не найден. " +
+            "Добавление/обновление запроса невозможно.";
 
     private final UserRepository userRepository;
     private final RequestRepository requestRepository;
     private final ItemRepository itemRepository;
+    private final UserGuard userGuard;
 
     @Override
     public ItemRequest create(ItemRequest itemRequest, long userId) {
@@ -43,7 +49,7 @@ public class ItemRequestServiceImpl implements ItemRequestService {
 
     @Override
     public ItemRequestDto getById(long requestId, long userId) {
-        getUserOrException(userId);
+        checkUserExists(userId);
         ItemRequestDto itemRequestDto = RequestMapper.requestToDto(requestRepository.findById(requestId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
                         "Несуществующий запрос: id = " + requestId)));
@@ -55,33 +61,24 @@ public class ItemRequestServiceImpl implements ItemRequestService {
 
     @Override
     public List<ItemRequestDto> getAllByRequestor(long userId) {
-        getUserOrException(userId);
-        List<ItemRequestDto> requests = requestRepository.findByRequestorId(userId).stream()
-                .sorted(Comparator.comparing(ItemRequest::getCreated).reversed())
+        checkUserExists(userId);
+        List<ItemRequestDto> requests = requestRepository.findByRequestorIdOrderByCreatedDesc(userId).stream()
                 .map(RequestMapper::requestToDto)
                 .collect(Collectors.toList());
-        List<Item> itemsByRequestId = itemRepository.findByRequestId(userId);
-        for (ItemRequestDto request : requests) {
-            setItemsToRequest(request, itemsByRequestId);
-        }
+        setItemsToRequests(requests);
         log.info("Запрос запросов от пользователя с id = {}", userId);
         return requests;
     }
 
     @Override
-    public List<ItemRequestDto> getAll(long userId, int from, int size) {
-        getUserOrException(userId);
+    public OffsetPage<ItemRequestDto> getAll(long userId, int from, int size) {
+        checkUserExists(userId);
         if (from >= 0 && size > 0) {
             PageRequest page = PageRequest.of(from > 0 ? from / size : 0,
                     size, Sort.by("created").descending());
-            List<ItemRequestDto> requests = requestRepository.findAll(page).get()
-                    .filter(r -> r.getRequestor().getId() != userId)
-                    .map(RequestMapper::requestToDto)
-                    .collect(Collectors.toList());
-            List<Item> items = itemRepository.findAll();
-            for (ItemRequestDto request : requests) {
-                setItemsToRequest(request, items);
-            }
+            OffsetPage<ItemRequestDto> requests = OffsetPage.of(requestRepository.findOthers(userId, page))
+                    .map(RequestMapper::requestToDto);
+            setItemsToRequests(requests.getContent());
             log.info("Запрос всех запросов с {} элемента по {}шт на странице.", from, size);
             return requests;
         } else {
@@ -89,10 +86,29 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         }
     }
 
+    @Override
+    public CursorPage<ItemRequestDto> getAllAfter(long userId, String cursor, int size) {
+        checkUserExists(userId);
+        if (size > 0) {
+            Cursor after = Cursor.decode(cursor, Cursor.descending());
+            CursorPage<ItemRequestDto> requests = CursorPage.of(requestRepository
+                            .findOthersAfterCursor(userId, after.getPosition(), after.getId(), PageRequest.of(0, size)),
+                    r -> new Cursor(r.getCreated(), r.getId())).map(RequestMapper::requestToDto);
+            setItemsToRequests(requests.getContent());
+            log.info("Запрос всех запросов после курсора {} по {}шт на странице.", cursor, size);
+            return requests;
+        } else {
+            throw new ArithmeticException("Неверный индекс или количество элементов.");
+        }
+    }
+
     private User getUserOrException(long userId) {
         return userRepository.findById(userId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Пользователь не найден. " +
-                        "Добавление/обновление запроса невозможно."));
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, USER_NOT_FOUND));
+    }
+
+    private void checkUserExists(long userId) {
+        userGuard.checkExists(userId, USER_NOT_FOUND);
     }
 
     private void setItemsToRequest(ItemRequestDto request, List<Item> items) {
@@ -102,4 +118,17 @@ public class ItemRequestServiceImpl implements ItemRequestService {
                 .filter(i -> i.getRequestId() == request.getId())
                 .collect(Collectors.toSet()));
     }
-}
\ No newline at end of file
+
+    private void setItemsToRequests(List<ItemRequestDto> requests) {
+        if (requests.isEmpty()) {
+            return;
+        }
+        List<Long> requestsId = requests.stream().map(ItemRequestDto::getId).collect(Collectors.toList());
+        Map<Long, Set<ItemDto>> items = itemRepository.findByRequestIdIn(requestsId).stream()
+                .map(ItemMapper::toItemDto)
+                .collect(Collectors.groupingBy(ItemDto::getRequestId, Collectors.toSet()));
+        for (ItemRequestDto request : requests) {
+            request.setItems(items.getOrDefault(request.getId(), new HashSet<>()));
+        }
+    }
+}
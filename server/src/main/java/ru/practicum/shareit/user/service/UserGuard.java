@@ -0,0 +1,140 @@
+package ru.practicum.shareit.user.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.Duration;
+import java.util.BitSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Component
+public class UserGuard {
+    private final UserRepository userRepository;
+    private final BitSet known = new BitSet();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final long ttlNanos;
+    private long deletions;
+    private int deleting;
+    private long resetAt;
+
+    public UserGuard(UserRepository userRepository,
+                     @Value("${shareit-server.user-guard.ttl:30s}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.ttlNanos = ttl.toNanos();
+        this.resetAt = System.nanoTime();
+    }
+
+    public void checkExists(long userId, String message) {
+        if (!exists(userId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, message);
+        }
+    }
+
+    public boolean exists(long userId) {
+        if (!isIndexable(userId)) {
+            return userRepository.existsById(userId);
+        }
+        expireIfStale();
+        long seen;
+        lock.readLock().lock();
+        try {
+            if (known.get((int) userId)) {
+                return true;
+            }
+            seen = deletions;
+        } finally {
+            lock.readLock().unlock();
+        }
+        boolean exists = userRepository.existsById(userId);
+        if (exists) {
+            lock.writeLock().lock();
+            try {
+                if (seen == deletions && deleting == 0) {
+                    known.set((int) userId);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        return exists;
+    }
+
+    public void created(long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remember(userId);
+                }
+            });
+        } else {
+            remember(userId);
+        }
+    }
+
+    public void delete(long userId, Runnable deletion) {
+        forget(userId, 1);
+        try {
+            deletion.run();
+        } finally {
+            forget(userId, -1);
+        }
+    }
+
+    private void expireIfStale() {
+        long now = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            if (now - resetAt < ttlNanos) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            if (now - resetAt >= ttlNanos) {
+                known.clear();
+                resetAt = now;
+                deletions++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void forget(long userId, int delta) {
+        lock.writeLock().lock();
+        try {
+            if (isIndexable(userId)) {
+                known.clear((int) userId);
+            }
+            deleting += delta;
+            deletions++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void remember(long userId) {
+        if (!isIndexable(userId)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            known.set((int) userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static boolean isIndexable(long userId) {
+        return userId >= 0 && userId <= Integer.MAX_VALUE;
+    }
+}
@@ -5,10 +5,19 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
+import ru.practicum.shareit.booking.service.BookingIntervalIndex;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemSearchIndex;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.RequestRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
 import java.util.Collection;
+import java.util.List;
 
 import static java.util.Objects.nonNull;
 
@@ -17,11 +26,19 @@ import static java.util.Objects.nonNull;
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
+    private final ItemSearchIndex itemSearchIndex;
+    private final EntityManagerFactory entityManagerFactory;
+    private final UserGuard userGuard;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final ItemRepository itemRepository;
+    private final RequestRepository requestRepository;
 
     @Override
     public User create(User user) {
         log.info("Создан пользователь {}.", user.getEmail());
-        return userRepository.save(user);
+        User created = userRepository.save(user);
+        userGuard.created(created.getId());
+        return created;
     }
 
     @Override
@@ -53,7 +70,14 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public void delete(long id) {
-        userRepository.deleteById(id);
+        List<Long> itemIds = itemRepository.findIdsByOwnerId(id);
+        List<Long> requestIds = requestRepository.findIdsByRequestorId(id);
+        userGuard.delete(id, () -> userRepository.deleteById(id));
+        Cache cache = entityManagerFactory.getCache();
+        itemIds.forEach(itemId -> cache.evict(Item.class, itemId));
+        requestIds.forEach(requestId -> cache.evict(ItemRequest.class, requestId));
+        itemSearchIndex.removeOwner(id);
+        bookingIntervalIndex.clear();
         log.info("Удаление пользователя с id = {}.", id);
     }
 }
\ No newline at end of file
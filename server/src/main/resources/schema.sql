@@ -3,10 +3,21 @@ DROP TABLE IF EXISTS requests CASCADE;
 DROP TABLE IF EXISTS items CASCADE;
 DROP TABLE IF EXISTS bookings CASCADE;
 DROP TABLE IF EXISTS comments CASCADE;
+DROP SEQUENCE IF EXISTS users_seq;
+DROP SEQUENCE IF EXISTS requests_seq;
+DROP SEQUENCE IF EXISTS items_seq;
+DROP SEQUENCE IF EXISTS bookings_seq;
+DROP SEQUENCE IF EXISTS comments_seq;
+
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS requests_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS items_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS bookings_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS comments_seq START WITH 1 INCREMENT BY 50;
 
 CREATE TABLE IF NOT EXISTS users
 (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    id BIGINT PRIMARY KEY,
     name VARCHAR(255) NOT NULL,
     email VARCHAR(512) NOT NULL,
     UNIQUE (email)
@@ -14,7 +25,7 @@ CREATE TABLE IF NOT EXISTS users
 
 CREATE TABLE IF NOT EXISTS items
 (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    id BIGINT PRIMARY KEY,
     name VARCHAR(255) NOT NULL,
     description VARCHAR(255) NOT NULL,
     available BOOLEAN,
@@ -26,7 +37,7 @@ CREATE TABLE IF NOT EXISTS items
 
 CREATE TABLE IF NOT EXISTS bookings
 (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    id BIGINT PRIMARY KEY,
     start_date TIMESTAMP WITHOUT TIME ZONE,
     end_date TIMESTAMP WITHOUT TIME ZONE,
     item_id BIGINT NOT NULL
@@ -35,12 +46,13 @@ CREATE TABLE IF NOT EXISTS bookings
     booker_id BIGINT NOT NULL
     CONSTRAINT bookings_booker_id_fk
     REFERENCES users (id) ON DELETE CASCADE,
-    status VARCHAR(8) NOT NULL
+    status VARCHAR(8) NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0
 );
 
 CREATE TABLE IF NOT EXISTS requests
 (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    id BIGINT PRIMARY KEY,
     description VARCHAR(255) NOT NULL,
     requestor_id BIGINT NOT NULL
     CONSTRAINT requests_requestor_id_fk
@@ -50,7 +62,7 @@ CREATE TABLE IF NOT EXISTS requests
 
 CREATE TABLE IF NOT EXISTS comments
 (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    id BIGINT PRIMARY KEY,
     text VARCHAR(255) NOT NULL,
     item_id BIGINT NOT NULL
     CONSTRAINT comments_item_id_fk
@@ -59,4 +71,10 @@ CREATE TABLE IF NOT EXISTS comments
     CONSTRAINT comments_author_id_fk
     REFERENCES users (id) ON DELETE CASCADE,
     created TIMESTAMP WITHOUT TIME ZONE
-);
\ No newline at end of file
+);
+
+CREATE INDEX IF NOT EXISTS items_owner_id_idx ON items (owner_id, id);
+CREATE INDEX IF NOT EXISTS bookings_item_id_start_date_end_date_status_idx ON bookings (item_id, start_date, end_date, status);
+CREATE INDEX IF NOT EXISTS bookings_item_id_status_idx ON bookings (item_id, status);
+CREATE INDEX IF NOT EXISTS bookings_booker_id_start_date_idx ON bookings (booker_id, start_date);
+CREATE INDEX IF NOT EXISTS bookings_booker_id_status_idx ON bookings (booker_id, status, start_date);
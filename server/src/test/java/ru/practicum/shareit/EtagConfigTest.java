@@ -0,0 +1,66 @@
+package ru.practicum.shareit;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(classes = ShareItServer.class)
+@AutoConfigureMockMvc
+class EtagConfigTest {
+    @Autowired
+    private MockMvc mvc;
+
+    @Test
+    void searchReturnsNotModifiedForMatchingEtag() throws Exception {
+        String etag = mvc.perform(get("/items/search").param("text", "дрель"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", startsWith("\"0")))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mvc.perform(get("/items/search").param("text", "дрель").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void onlySingleItemAndSearchHaveEtag() throws Exception {
+        String user = mvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"etag\",\"email\":\"etag@mail.ru\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("ETag"))
+                .andReturn().getResponse().getContentAsString();
+        String userId = JsonPath.read(user, "$.id").toString();
+        String items = mvc.perform(post("/items/batch")
+                        .header("X-Sharer-User-Id", userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"name\":\"drill\",\"description\":\"drill\",\"available\":true}]"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("ETag"))
+                .andReturn().getResponse().getContentAsString();
+        String itemId = JsonPath.read(items, "$[0].id").toString();
+
+        mvc.perform(get("/items/" + itemId).header("X-Sharer-User-Id", userId))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"));
+        mvc.perform(get("/items").header("X-Sharer-User-Id", userId))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("ETag"));
+    }
+
+    @Test
+    void nonItemEndpointsHaveNoEtag() throws Exception {
+        mvc.perform(get("/users"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("ETag"));
+    }
+}
@@ -0,0 +1,49 @@
+package ru.practicum.shareit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(
+        properties = "db.name=test",
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class SecondLevelCacheMetricsConfigTest {
+    private final UserRepository userRepository;
+    private final EntityManagerFactory entityManagerFactory;
+    private final MeterRegistry meterRegistry;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void secondLevelCacheMetrics_whenStatisticsNotEnabled_countRegionHitsAndMisses() {
+        User user = userRepository.save(User.builder().name("user").email("user@mail.ru").build());
+        entityManagerFactory.getCache().evict(User.class, user.getId());
+        double hits = gets("hit");
+        double misses = gets("miss");
+
+        userRepository.findById(user.getId());
+        userRepository.findById(user.getId());
+
+        assertTrue(gets("miss") > misses);
+        assertEquals(hits + 1, gets("hit"));
+    }
+
+    private double gets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", "users").tag("result", result)
+                .functionCounter().count();
+    }
+}
@@ -0,0 +1,169 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.Status;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@EnabledIfSystemProperty(named = "server.load-test", matches = "true")
+class VirtualThreadsLoadTest {
+    private static final int REQUESTS = 5000;
+    private static final int CONCURRENCY = 1000;
+    private static final int TOMCAT_THREADS = 50;
+    private static final int BOOKINGS = 200;
+
+    @Test
+    void comparePlatformAndVirtualThreads() throws Exception {
+        List<LoadResult> results = new ArrayList<>();
+        results.add(run("platform", "test"));
+        if (Runtime.version().feature() >= 21) {
+            results.add(run("virtual", "test,virtual-threads"));
+        } else {
+            System.out.println("Java " + Runtime.version().feature() + ": virtual threads skipped");
+        }
+
+        System.out.printf("%-10s %10s %10s %10s %14s%n", "threads", "p50, ms", "p99, ms", "req/s", "peak threads");
+        for (LoadResult result : results) {
+            System.out.printf("%-10s %10d %10d %10d %14d%n", result.mode, result.p50, result.p99,
+                    result.throughput, result.peakThreads);
+        }
+        for (LoadResult result : results) {
+            assertEquals(REQUESTS, result.succeeded);
+        }
+    }
+
+    private LoadResult run(String mode, String profiles) throws Exception {
+        try (ConfigurableApplicationContext server = new SpringApplicationBuilder(ShareItServer.class)
+                .run("--spring.profiles.active=" + profiles,
+                        "--db.name=load-" + mode,
+                        "--server.port=0",
+                        "--server.tomcat.threads.max=" + TOMCAT_THREADS,
+                        "--spring.jpa.hibernate.show_sql=false",
+                        "--logging.level.org.springframework.transaction.interceptor=INFO",
+                        "--logging.level.org.springframework.orm.jpa.JpaTransactionManager=INFO")) {
+            long ownerId = seed(server);
+            int port = ((WebServerApplicationContext) server).getWebServer().getPort();
+            URI uri = URI.create("http://localhost:" + port + "/bookings/owner?state=ALL&from=0&size=20");
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(Executors.newFixedThreadPool(8))
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .header("X-Sharer-User-Id", String.valueOf(ownerId))
+                    .timeout(Duration.ofSeconds(60))
+                    .GET()
+                    .build();
+            send(client, request, CONCURRENCY);
+
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            threads.resetPeakThreadCount();
+            long started = System.nanoTime();
+            List<Long> latencies = send(client, request, REQUESTS);
+            long elapsed = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+
+            Collections.sort(latencies);
+            return new LoadResult(mode, percentile(latencies, 0.5), percentile(latencies, 0.99),
+                    REQUESTS * 1000L / elapsed, threads.getPeakThreadCount(), latencies.size());
+        }
+    }
+
+    private static long seed(ConfigurableApplicationContext server) {
+        return new TransactionTemplate(server.getBean(PlatformTransactionManager.class))
+                .execute(status -> seedInTransaction(server));
+    }
+
+    private static long seedInTransaction(ConfigurableApplicationContext server) {
+        User owner = server.getBean(UserRepository.class)
+                .save(User.builder().name("owner").email("owner@mail.ru").build());
+        User booker = server.getBean(UserRepository.class)
+                .save(User.builder().name("booker").email("booker@mail.ru").build());
+        Item item = server.getBean(ItemRepository.class).save(Item.builder()
+                .name("item")
+                .description("description")
+                .available(true)
+                .owner(owner)
+                .build());
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        server.getBean(BookingRepository.class).saveAll(IntStream.range(0, BOOKINGS)
+                .mapToObj(i -> Booking.builder()
+                        .start(start.plusHours(i * 2L))
+                        .end(start.plusHours(i * 2L + 1))
+                        .item(item)
+                        .booker(booker)
+                        .status(Status.WAITING)
+                        .build())
+                .collect(Collectors.toList()));
+        return owner.getId();
+    }
+
+    private static List<Long> send(HttpClient client, HttpRequest request, int requests) {
+        Semaphore permits = new Semaphore(CONCURRENCY);
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            permits.acquireUninterruptibly();
+            long started = System.nanoTime();
+            futures.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, e) -> {
+                        permits.release();
+                        if (e == null && response.statusCode() == 200) {
+                            latencies.add((System.nanoTime() - started) / 1_000_000);
+                        }
+                    }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).exceptionally(e -> null).join();
+        return new ArrayList<>(latencies);
+    }
+
+    private static long percentile(List<Long> sorted, double percentile) {
+        return sorted.isEmpty() ? 0 : sorted.get((int) Math.ceil(percentile * sorted.size()) - 1);
+    }
+
+    private static class LoadResult {
+        private final String mode;
+        private final long p50;
+        private final long p99;
+        private final long throughput;
+        private final int peakThreads;
+        private final int succeeded;
+
+        private LoadResult(String mode, long p50, long p99, long throughput, int peakThreads, int succeeded) {
+            this.mode = mode;
+            this.p50 = p50;
+            this.p99 = p99;
+            this.throughput = throughput;
+            this.peakThreads = peakThreads;
+            this.succeeded = succeeded;
+        }
+    }
+}
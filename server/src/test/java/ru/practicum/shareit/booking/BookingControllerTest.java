@@ -8,16 +8,29 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.server.ResponseStatusException;
+import ru.practicum.shareit.booking.dto.BookingApproveDto;
+import ru.practicum.shareit.booking.dto.BookingApproveResultDto;
+import ru.practicum.shareit.booking.dto.BookingApproveResultDto.Result;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingStateDto;
+import ru.practicum.shareit.booking.dto.State;
 import ru.practicum.shareit.booking.dto.Status;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.OffsetPage;
 import ru.practicum.shareit.user.model.User;
 
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -26,9 +39,13 @@ import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -74,6 +91,41 @@ class BookingControllerTest {
                 .build();
     }
 
+    @SneakyThrows
+    @Test
+    void exportByOwner_whenAllRight_streamNdjson() {
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write("{\"id\":1}\n{\"id\":2}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(bookingService).exportByOwner(any(BookingStateDto.class), any(OutputStream.class));
+
+        MvcResult result = mvc.perform(get(REQUEST_BOOKINGS + "/owner/export")
+                        .param("state", "PAST")
+                        .header(REQUEST_HEADER, 1))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"id\":1}\n{\"id\":2}\n"));
+        verify(bookingService).exportByOwner(eq(new BookingStateDto(1L, State.PAST)), any(OutputStream.class));
+    }
+
+    @SneakyThrows
+    @Test
+    void exportByOwner_whenUserNotFound_returnNotFound() {
+        doThrow(new ResponseStatusException(HttpStatus.NOT_FOUND, "Пользователь не найден."))
+                .when(bookingService).checkExportAllowed(new BookingStateDto(99L, State.ALL));
+
+        mvc.perform(get(REQUEST_BOOKINGS + "/owner/export")
+                        .header(REQUEST_HEADER, 99))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isNotFound());
+        verify(bookingService, never()).exportByOwner(any(), any());
+    }
+
     @SneakyThrows
     @Test
     void createBooking_whenAllRight_returnOkAndBooking() {
@@ -140,6 +192,28 @@ class BookingControllerTest {
         verify(bookingService, times(1)).updateApprove(anyLong(), anyBoolean(), anyLong());
     }
 
+    @SneakyThrows
+    @Test
+    void updateAll() {
+        BookingApproveDto approveDto = new BookingApproveDto(List.of(1L, 2L), true);
+        when(bookingService.updateApproveAll(any(), eq(1L)))
+                .thenReturn(List.of(new BookingApproveResultDto(1L, Result.UPDATED, Status.APPROVED),
+                        new BookingApproveResultDto(2L, Result.CONFLICT, Status.WAITING)));
+
+        mvc.perform(patch(REQUEST_BOOKINGS + "/approve")
+                        .content(mapper.writeValueAsString(approveDto))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header(REQUEST_HEADER, 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].result", is("UPDATED")))
+                .andExpect(jsonPath("$[1].result", is("CONFLICT")))
+                .andExpect(jsonPath("$[1].status", is("WAITING")));
+
+        verify(bookingService, never()).updateApprove(anyLong(), anyBoolean(), anyLong());
+    }
+
     @SneakyThrows
     @Test
     void getById() {
@@ -173,7 +247,8 @@ class BookingControllerTest {
                 .status(Status.WAITING)
                 .build();
         when(bookingService.getAllByState(any(), anyInt(), anyInt()))
-                .thenReturn(List.of(booking, booking2));
+                .thenReturn(new OffsetPage<>(List.of(BookingMapper.bookingShortDto(booking),
+                        BookingMapper.bookingShortDto(booking2)), false));
 
         mvc.perform(get(REQUEST_BOOKINGS)
                         .characterEncoding(StandardCharsets.UTF_8)
@@ -184,20 +259,21 @@ class BookingControllerTest {
                         .param("from", "0")
                         .param("size", "5"))
                 .andExpect(status().isOk())
+                .andExpect(header().string(OffsetPage.HAS_NEXT_HEADER, "false"))
                 .andExpect(jsonPath("$.*", is(hasSize(2))))
                 .andExpect(jsonPath("$[0].id", is(booking.getId()), Long.class))
                 .andExpect(jsonPath("$[0].item.name", is(booking.getItem().getName())))
-                .andExpect(jsonPath("$[0].item.description", is(booking.getItem().getDescription())))
+                .andExpect(jsonPath("$[0].item.description").doesNotExist())
+                .andExpect(jsonPath("$[0].item.owner").doesNotExist())
                 .andExpect(jsonPath("$[0].booker.id", is(booking.getBooker().getId()), Long.class))
-                .andExpect(jsonPath("$[0].booker.email", is(booking.getBooker().getEmail())))
-                .andExpect(jsonPath("$[0].booker.name", is(booking.getBooker().getName())))
+                .andExpect(jsonPath("$[0].booker.email").doesNotExist())
                 .andExpect(jsonPath("$[0].status", is(booking.getStatus().name())))
                 .andExpect(jsonPath("$[1].id", is(booking2.getId()), Long.class))
                 .andExpect(jsonPath("$[1].item.name", is(booking2.getItem().getName())))
-                .andExpect(jsonPath("$[1].item.description", is(booking2.getItem().getDescription())))
+                .andExpect(jsonPath("$[1].item.description").doesNotExist())
+                .andExpect(jsonPath("$[1].item.owner").doesNotExist())
                 .andExpect(jsonPath("$[1].booker.id", is(booking2.getBooker().getId()), Long.class))
-                .andExpect(jsonPath("$[1].booker.email", is(booking2.getBooker().getEmail())))
-                .andExpect(jsonPath("$[1].booker.name", is(booking2.getBooker().getName())))
+                .andExpect(jsonPath("$[1].booker.email").doesNotExist())
                 .andExpect(jsonPath("$[1].status", is(booking2.getStatus().name())));
     }
 
@@ -227,7 +303,8 @@ class BookingControllerTest {
                 .status(Status.WAITING)
                 .build();
         when(bookingService.getAllByOwner(any(), anyInt(), anyInt()))
-                .thenReturn(List.of(booking, booking2));
+                .thenReturn(new OffsetPage<>(List.of(BookingMapper.bookingShortDto(booking),
+                        BookingMapper.bookingShortDto(booking2)), true));
 
         mvc.perform(get(REQUEST_BOOKINGS + "/owner")
                         .characterEncoding(StandardCharsets.UTF_8)
@@ -238,20 +315,42 @@ class BookingControllerTest {
                         .param("from", "0")
                         .param("size", "5"))
                 .andExpect(status().isOk())
+                .andExpect(header().string(OffsetPage.HAS_NEXT_HEADER, "true"))
                 .andExpect(jsonPath("$.*", is(hasSize(2))))
                 .andExpect(jsonPath("$[0].id", is(booking.getId()), Long.class))
                 .andExpect(jsonPath("$[0].item.name", is(booking.getItem().getName())))
-                .andExpect(jsonPath("$[0].item.description", is(booking.getItem().getDescription())))
+                .andExpect(jsonPath("$[0].item.description").doesNotExist())
+                .andExpect(jsonPath("$[0].item.owner").doesNotExist())
                 .andExpect(jsonPath("$[0].booker.id", is(booking.getBooker().getId()), Long.class))
-                .andExpect(jsonPath("$[0].booker.email", is(booking.getBooker().getEmail())))
-                .andExpect(jsonPath("$[0].booker.name", is(booking.getBooker().getName())))
+                .andExpect(jsonPath("$[0].booker.email").doesNotExist())
                 .andExpect(jsonPath("$[0].status", is(booking.getStatus().name())))
                 .andExpect(jsonPath("$[1].id", is(booking2.getId()), Long.class))
                 .andExpect(jsonPath("$[1].item.name", is(booking2.getItem().getName())))
-                .andExpect(jsonPath("$[1].item.description", is(booking2.getItem().getDescription())))
+                .andExpect(jsonPath("$[1].item.description").doesNotExist())
+                .andExpect(jsonPath("$[1].item.owner").doesNotExist())
                 .andExpect(jsonPath("$[1].booker.id", is(booking2.getBooker().getId()), Long.class))
-                .andExpect(jsonPath("$[1].booker.email", is(booking2.getBooker().getEmail())))
-                .andExpect(jsonPath("$[1].booker.name", is(booking2.getBooker().getName())))
+                .andExpect(jsonPath("$[1].booker.email").doesNotExist())
                 .andExpect(jsonPath("$[1].status", is(booking2.getStatus().name())));
     }
-}
\ No newline at end of file
+
+    @SneakyThrows
+    @Test
+    void getAllByOwnerAfter_whenCursorPassed_returnPageAndNextCursor() {
+        String next = new Cursor(booking.getStart(), booking.getId()).encode();
+        when(bookingService.getAllByOwnerAfter(any(), eq("abc"), eq(1)))
+                .thenReturn(new CursorPage<>(List.of(BookingMapper.bookingShortDto(booking)), next));
+
+        mvc.perform(get(REQUEST_BOOKINGS + "/owner")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header(REQUEST_HEADER, 1)
+                        .param("state", "ALL")
+                        .param("cursor", "abc")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(Cursor.NEXT_CURSOR_HEADER, next))
+                .andExpect(jsonPath("$.*", is(hasSize(1))))
+                .andExpect(jsonPath("$[0].id", is(booking.getId()), Long.class));
+        verify(bookingService, never()).getAllByOwner(any(), anyInt(), anyInt());
+    }
+}
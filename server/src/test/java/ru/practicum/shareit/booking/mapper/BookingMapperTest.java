@@ -2,6 +2,7 @@ package ru.practicum.shareit.booking.mapper;
 
 import org.junit.jupiter.api.Test;
 import ru.practicum.shareit.booking.dto.BookingItemDto;
+import ru.practicum.shareit.booking.dto.BookingShortDto;
 import ru.practicum.shareit.booking.dto.Status;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.model.Item;
@@ -38,8 +39,16 @@ class BookingMapperTest {
                 .build();
 
         BookingItemDto bookingItemDto = BookingMapper.bookingItemDto(booking);
+        BookingShortDto bookingShortDto = BookingMapper.bookingShortDto(booking);
 
         assertEquals(booking.getId(), bookingItemDto.getId());
         assertEquals(booking.getBooker().getId(), bookingItemDto.getBookerId());
+        assertEquals(booking.getId(), bookingShortDto.getId());
+        assertEquals(booking.getStart(), bookingShortDto.getStart());
+        assertEquals(booking.getEnd(), bookingShortDto.getEnd());
+        assertEquals(booking.getStatus(), bookingShortDto.getStatus());
+        assertEquals(item.getId(), bookingShortDto.getItem().getId());
+        assertEquals(item.getName(), bookingShortDto.getItem().getName());
+        assertEquals(user.getId(), bookingShortDto.getBooker().getId());
     }
 }
\ No newline at end of file
@@ -0,0 +1,170 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.Status;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "ru.practicum.shareit.booking.repository.BookingQueryPlanTest$StatementCollector")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BookingQueryPlanTest {
+    private static final int USERS = 50;
+    private static final int ITEMS_PER_USER = 4;
+    private static final int BOOKINGS_PER_ITEM = 10;
+    private static final int SIZE = 10;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private UserRepository userRepository;
+    private List<User> users;
+    private final LocalDateTime now = LocalDateTime.now();
+    private final PageRequest page = PageRequest.of(0, SIZE);
+    private final PageRequest sortedPage = PageRequest.of(0, SIZE, Sort.by("start").descending());
+
+    @BeforeAll
+    void setUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> seed());
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    private void seed() {
+        List<User> newUsers = new ArrayList<>();
+        for (int u = 0; u < USERS; u++) {
+            newUsers.add(User.builder().name("user" + u).email("user" + u + "@mail.ru").build());
+        }
+        users = userRepository.saveAll(newUsers);
+        List<Item> items = new ArrayList<>();
+        for (int u = 0; u < USERS; u++) {
+            for (int i = 0; i < ITEMS_PER_USER; i++) {
+                items.add(Item.builder()
+                        .name("item" + u + "_" + i)
+                        .description("description")
+                        .available(true)
+                        .owner(users.get(u))
+                        .build());
+            }
+        }
+        items = itemRepository.saveAll(items);
+        Status[] statuses = Status.values();
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            for (int b = 0; b < BOOKINGS_PER_ITEM; b++) {
+                LocalDateTime start = now.plusDays(b - BOOKINGS_PER_ITEM / 2);
+                bookings.add(Booking.builder()
+                        .start(start)
+                        .end(start.plusHours(36))
+                        .item(items.get(i))
+                        .booker(users.get((i / ITEMS_PER_USER + b + 1) % USERS))
+                        .status(statuses[b % statuses.length])
+                        .build());
+            }
+        }
+        bookingRepository.saveAll(bookings);
+    }
+
+    @AfterAll
+    void tearDown() {
+        bookingRepository.deleteAllInBatch();
+        itemRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void ownerQueries_whenEveryState_useIndexes() {
+        long ownerId = users.get(7).getId();
+
+        assertIndexed(() -> bookingRepository.findByOwner(ownerId, page), ownerId);
+        assertIndexed(() -> bookingRepository.findByOwnerCurrentBooking(ownerId, now, page), ownerId, now);
+        assertIndexed(() -> bookingRepository.findByOwnerPastBooking(ownerId, now, page), ownerId, now);
+        assertIndexed(() -> bookingRepository.findByOwnerFutureBooking(ownerId, now, page), ownerId, now);
+        assertIndexed(() -> bookingRepository.findByOwnerByStatus(ownerId, Status.WAITING, page),
+                ownerId, Status.WAITING.name());
+    }
+
+    @Test
+    void bookerQueries_whenEveryState_useIndexes() {
+        long bookerId = users.get(7).getId();
+
+        assertIndexed(() -> bookingRepository.findByBooker_Id(bookerId, sortedPage), bookerId);
+        assertIndexed(() -> bookingRepository.findCurrentBooking(bookerId, now, sortedPage), bookerId, now);
+        assertIndexed(() -> bookingRepository.findByBooker_IdAndEndIsBefore(bookerId, now, sortedPage),
+                bookerId, now);
+        assertIndexed(() -> bookingRepository.findByBooker_IdAndStartIsAfter(bookerId, now, sortedPage),
+                bookerId, now);
+        assertIndexed(() -> bookingRepository.findBookingByStatus(bookerId, Status.REJECTED, sortedPage),
+                bookerId, Status.REJECTED.name());
+    }
+
+    private void assertIndexed(Supplier<?> query, Object... params) {
+        StatementCollector.STATEMENTS.clear();
+        query.get();
+        assertFalse(StatementCollector.STATEMENTS.isEmpty());
+        for (String sql : new ArrayList<>(StatementCollector.STATEMENTS)) {
+            String plan = explain(sql, params);
+            assertFalse(plan.contains("tableScan"), sql + "\n" + plan);
+        }
+    }
+
+    private String explain(String sql, Object... params) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                int count = statement.getParameterMetaData().getParameterCount();
+                for (int i = 0; i < count; i++) {
+                    statement.setObject(i + 1, i < params.length ? params[i] : SIZE);
+                }
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        plan.append(resultSet.getString(1));
+                    }
+                }
+                return plan.toString();
+            }
+        });
+    }
+
+    public static class StatementCollector implements StatementInspector {
+        private static final List<String> STATEMENTS = new ArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
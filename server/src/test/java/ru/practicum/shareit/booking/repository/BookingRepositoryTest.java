@@ -8,18 +8,27 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.booking.dto.BookingSlot;
 import ru.practicum.shareit.booking.dto.Status;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.Cursor;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
 class BookingRepositoryTest {
@@ -78,30 +87,34 @@ class BookingRepositoryTest {
 
     @Test
     void findByBooker_Id() {
-        List<Booking> bookings = bookingRepository
+        List<BookingShortDto> bookings = bookingRepository
                 .findByBooker_Id(user1.getId(), page).getContent();
 
         assertEquals(1, bookings.size());
-        assertEquals(bookings.get(0), booking1);
+        assertEquals(booking1.getId(), bookings.get(0).getId());
+        assertEquals(Status.WAITING, bookings.get(0).getStatus());
+        assertEquals(item2.getId(), bookings.get(0).getItem().getId());
+        assertEquals(item2.getName(), bookings.get(0).getItem().getName());
+        assertEquals(user1.getId(), bookings.get(0).getBooker().getId());
     }
 
     @Test
     void findCurrentBooking() {
-        List<Booking> bookings = bookingRepository.findCurrentBooking(
+        List<BookingShortDto> bookings = bookingRepository.findCurrentBooking(
                 user2.getId(), LocalDateTime.now(), page).getContent();
 
         assertEquals(1, bookings.size());
-        assertEquals(bookings.get(0), booking);
+        assertEquals(booking.getId(), bookings.get(0).getId());
     }
 
     @Test
     void findByBooker_IdAndEndIsBefore() {
-        List<Booking> bookings = bookingRepository
+        List<BookingShortDto> bookings = bookingRepository
                 .findByBooker_IdAndEndIsBefore(user1.getId(),
                         LocalDateTime.now().plusDays(3), page).getContent();
 
         assertEquals(1, bookings.size());
-        assertEquals(bookings.get(0), booking1);
+        assertEquals(booking1.getId(), bookings.get(0).getId());
     }
 
     @Test
@@ -116,71 +129,71 @@ class BookingRepositoryTest {
 
     @Test
     void findByBooker_IdAndStartIsAfter() {
-        List<Booking> bookings = bookingRepository
+        List<BookingShortDto> bookings = bookingRepository
                 .findByBooker_IdAndStartIsAfter(user1.getId(),
                         LocalDateTime.now().minusDays(3), page).getContent();
 
         assertEquals(1, bookings.size());
-        assertEquals(bookings.get(0), booking1);
+        assertEquals(booking1.getId(), bookings.get(0).getId());
     }
 
     @Test
     void findBookingByStatus() {
-        List<Booking> bookings = bookingRepository
+        List<BookingShortDto> bookings = bookingRepository
                 .findBookingByStatus(
                         user2.getId(), Status.APPROVED, page).getContent();
 
         assertEquals(1, bookings.size());
-        assertEquals(bookings.get(0), booking);
+        assertEquals(booking.getId(), bookings.get(0).getId());
     }
 
     @Test
     void findByOwner() {
-        List<Booking> bookings = bookingRepository
+        List<BookingShortDto> bookings = bookingRepository
                 .findByOwner(user2.getId(), page).getContent();
 
         assertEquals(1, bookings.size());
-        assertEquals(bookings.get(0), booking1);
+        assertEquals(booking1.getId(), bookings.get(0).getId());
     }
 
     @Test
     void findByOwnerCurrentBooking() {
-        List<Booking> bookings = bookingRepository
+        List<BookingShortDto> bookings = bookingRepository
                 .findByOwnerCurrentBooking(user1.getId(),
                         LocalDateTime.now(), page).getContent();
 
         assertEquals(1, bookings.size());
-        assertEquals(bookings.get(0), booking);
+        assertEquals(booking.getId(), bookings.get(0).getId());
     }
 
     @Test
     void findByOwnerPastBooking() {
-        List<Booking> bookings = bookingRepository
+        List<BookingShortDto> bookings = bookingRepository
                 .findByOwnerPastBooking(user1.getId(),
                         LocalDateTime.now().plusDays(3), page).getContent();
 
         assertEquals(1, bookings.size());
-        assertEquals(bookings.get(0), booking);
+        assertEquals(booking.getId(), bookings.get(0).getId());
     }
 
     @Test
     void findByOwnerFutureBooking() {
-        List<Booking> bookings = bookingRepository
+        List<BookingShortDto> bookings = bookingRepository
                 .findByOwnerFutureBooking(user1.getId(),
                         LocalDateTime.now().minusDays(3), page).getContent();
 
         assertEquals(1, bookings.size());
-        assertEquals(bookings.get(0), booking);
+        assertEquals(booking.getId(), bookings.get(0).getId());
     }
 
     @Test
     void findByOwnerByStatus() {
-        List<Booking> bookings = bookingRepository
+        List<BookingShortDto> bookings = bookingRepository
                 .findByOwnerByStatus(
                         user1.getId(), Status.APPROVED, page).getContent();
 
         assertEquals(1, bookings.size());
-        assertEquals(bookings.get(0), booking);
+        assertEquals(booking.getId(), bookings.get(0).getId());
     }
 
     @Test
@@ -203,8 +216,148 @@ class BookingRepositoryTest {
         assertEquals(bookings.get(0), booking1);
     }
 
+    @Test
+    void findIntervals() {
+        Booking rejected = new Booking();
+        rejected.setStart(LocalDateTime.now().plusHours(1));
+        rejected.setEnd(LocalDateTime.now().plusHours(2));
+        rejected.setItem(item1);
+        rejected.setBooker(user2);
+        rejected.setStatus(Status.REJECTED);
+        bookingRepository.save(rejected);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<BookingInterval> intervals = bookingRepository.findIntervals(
+                List.of(item1.getId(), item2.getId()), Status.APPROVED, now, now.plusHours(3));
+
+        assertEquals(1, intervals.size());
+        assertEquals(item1.getId(), intervals.get(0).getItemId());
+        assertEquals(booking.getId(), intervals.get(0).getId());
+        assertEquals(booking.getBooker().getId(), intervals.get(0).getBookerId());
+        assertTrue(bookingRepository.findIntervals(List.of(item1.getId()), Status.APPROVED,
+                now.plusHours(6), now.plusHours(7)).isEmpty());
+    }
+
+    @Test
+    void findLatestEndedAndEndingAfterIntervals() {
+        LocalDateTime now = LocalDateTime.now();
+        Booking old = saveApproved(now.minusDays(5), now.minusDays(4));
+        Booking recent = saveApproved(now.minusDays(3), now.minusDays(2));
+
+        List<BookingInterval> latest = bookingRepository.findLatestEndedIntervals(
+                List.of(item1.getId(), item2.getId()), Status.APPROVED, now);
+        List<BookingInterval> endingAfter = bookingRepository.findIntervalsEndingAfter(
+                List.of(item1.getId(), item2.getId()), Status.APPROVED, now);
+
+        assertEquals(List.of(recent.getId()), latest.stream().map(BookingInterval::getId)
+                .collect(Collectors.toList()));
+        assertEquals(List.of(booking.getId()), endingAfter.stream().map(BookingInterval::getId)
+                .collect(Collectors.toList()));
+        assertFalse(latest.stream().anyMatch(b -> b.getId() == old.getId()));
+    }
+
+    @Test
+    void existsOverlapping() {
+        LocalDateTime now = LocalDateTime.now();
+
+        assertTrue(bookingRepository.existsOverlapping(item1.getId(), Status.APPROVED,
+                now, now.plusHours(1), 0L));
+        assertFalse(bookingRepository.existsOverlapping(item1.getId(), Status.APPROVED,
+                now, now.plusHours(1), booking.getId()));
+        assertFalse(bookingRepository.existsOverlapping(item1.getId(), Status.APPROVED,
+                now.plusHours(5).plusMinutes(1), now.plusHours(6), 0L));
+    }
+
+    private Booking saveApproved(LocalDateTime start, LocalDateTime end) {
+        Booking approved = new Booking();
+        approved.setStart(start);
+        approved.setEnd(end);
+        approved.setItem(item1);
+        approved.setBooker(user2);
+        approved.setStatus(Status.APPROVED);
+        return bookingRepository.save(approved);
+    }
+
+    @Test
+    void updateStatus_whenNotOwner_skipBooking() {
+        int updated = bookingRepository.updateStatus(List.of(booking.getId(), booking1.getId()),
+                Status.APPROVED, Status.REJECTED, user1.getId());
+
+        assertEquals(1, updated);
+        assertEquals(Status.REJECTED, bookingRepository.findById(booking.getId()).orElseThrow().getStatus());
+        assertEquals(Status.WAITING, bookingRepository.findById(booking1.getId()).orElseThrow().getStatus());
+        assertEquals(0, bookingRepository.updateStatus(List.of(booking1.getId()),
+                Status.WAITING, Status.REJECTED, user1.getId()));
+    }
+
+    @Test
+    void updateStatus_whenStatusChangedSinceRead_skipBooking() {
+        assertEquals(0, bookingRepository.updateStatus(List.of(booking.getId()),
+                Status.WAITING, Status.REJECTED, user1.getId()));
+        assertEquals(Status.APPROVED, bookingRepository.findById(booking.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void findSlots() {
+        LocalDateTime from = booking.getStart().plusHours(1);
+        LocalDateTime to = booking.getEnd().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        Booking waiting = Booking.builder().start(booking.getEnd()).end(booking.getEnd().plusHours(2))
+                .item(item1).booker(user2).status(Status.WAITING).build();
+        bookingRepository.save(waiting);
+        Booking rejected = Booking.builder().start(booking.getEnd()).end(booking.getEnd().plusHours(2))
+                .item(item1).booker(user2).status(Status.REJECTED).build();
+        bookingRepository.save(rejected);
+        Booking outside = Booking.builder().start(to).end(to.plusHours(2))
+                .item(item1).booker(user2).status(Status.APPROVED).build();
+        bookingRepository.save(outside);
+
+        List<BookingSlot> slots = bookingRepository.findSlots(item1.getId(),
+                List.of(Status.APPROVED, Status.WAITING), from, to);
+
+        assertEquals(List.of(Status.APPROVED, Status.WAITING),
+                slots.stream().map(BookingSlot::getStatus).collect(Collectors.toList()));
+    }
+
+    @Test
+    void findByBookerAfterCursor() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        Booking earlier = Booking.builder().start(start).end(start.plusHours(1)).item(item2).booker(user1)
+                .status(Status.WAITING).build();
+        bookingRepository.save(earlier);
+        Booking later = Booking.builder().start(start).end(start.plusHours(1)).item(item2).booker(user1)
+                .status(Status.WAITING).build();
+        bookingRepository.save(later);
+        List<Status> statuses = List.of(Status.values());
+
+        Slice<BookingShortDto> first = bookingRepository.findByBookerAfterCursor(user1.getId(), statuses,
+                Cursor.MIN_POSITION, Cursor.MAX_POSITION, Cursor.MIN_POSITION, Cursor.MAX_POSITION,
+                Cursor.MAX_POSITION, Long.MAX_VALUE, PageRequest.of(0, 1));
+        Slice<BookingShortDto> second = bookingRepository.findByBookerAfterCursor(user1.getId(), statuses,
+                Cursor.MIN_POSITION, Cursor.MAX_POSITION, Cursor.MIN_POSITION, Cursor.MAX_POSITION,
+                later.getStart(), later.getId(), PageRequest.of(0, 1));
+
+        assertEquals(List.of(later.getId()), ids(first));
+        assertTrue(first.hasNext());
+        assertEquals(List.of(earlier.getId()), ids(second));
+        assertTrue(second.hasNext());
+    }
+
+    @Test
+    void findByOwnerAfterCursor() {
+        Slice<BookingShortDto> bookings = bookingRepository.findByOwnerAfterCursor(user1.getId(),
+                List.of(Status.APPROVED), Cursor.MIN_POSITION, LocalDateTime.now(),
+                LocalDateTime.now(), Cursor.MAX_POSITION, Cursor.MAX_POSITION, Long.MAX_VALUE, page);
+
+        assertEquals(List.of(booking.getId()), ids(bookings));
+        assertFalse(bookings.hasNext());
+    }
+
     @AfterEach
     void deleteDB() {
         bookingRepository.deleteAll();
     }
-}
\ No newline at end of file
+
+    private static List<Long> ids(Slice<BookingShortDto> bookings) {
+        return bookings.stream().map(BookingShortDto::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,198 @@
+package ru.practicum.shareit.booking.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import ru.practicum.shareit.booking.dto.BookingApproveDto;
+import ru.practicum.shareit.booking.dto.BookingApproveResultDto;
+import ru.practicum.shareit.booking.dto.BookingApproveResultDto.Result;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.Status;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserGuard;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(
+        properties = "db.name=test",
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class BookingConcurrencyTest {
+    private static final int BOOKINGS = 200;
+    private static final int THREADS = 16;
+    private final ItemRepository itemRepository;
+    private final UserRepository userRepository;
+    private final BookingRepository bookingRepository;
+    private final UserGuard userGuard;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+    private final LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+    private BookingService bookingService;
+    private User owner;
+    private User booker;
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        bookingService = new BookingServiceImpl(itemRepository, bookingRepository, userRepository,
+                userGuard, new ItemLocks(), new TransactionTemplate(transactionManager), bookingIntervalIndex,
+                objectMapper);
+        owner = userRepository.save(User.builder().name("owner").email("owner@mail.ru").build());
+        booker = userRepository.save(User.builder().name("booker").email("booker@mail.ru").build());
+        item = new TransactionTemplate(transactionManager).execute(status -> itemRepository.save(Item.builder()
+                .name("itemName")
+                .description("itemDescription")
+                .available(true)
+                .owner(userRepository.getReferenceById(owner.getId()))
+                .build()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookingRepository.deleteAllInBatch();
+        itemRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        bookingIntervalIndex.clear();
+    }
+
+    @Test
+    void updateApprove_whenOverlappingBookingsApprovedInParallel_approveExactlyOne() throws Exception {
+        List<Long> ids = Collections.synchronizedList(new ArrayList<>());
+        List<HttpStatus> created = runInParallel(i -> ids.add(bookingService
+                .create(new BookingDto(item.getId(), start, start.plusHours(2)), booker.getId()).getId()));
+
+        List<HttpStatus> approved = runInParallel(i -> bookingService.updateApprove(ids.get(i), true, owner.getId()));
+
+        assertEquals(BOOKINGS, Collections.frequency(created, HttpStatus.OK));
+        assertEquals(1, Collections.frequency(approved, HttpStatus.OK));
+        assertEquals(BOOKINGS - 1, Collections.frequency(approved, HttpStatus.CONFLICT));
+        assertEquals(1, bookingRepository.findAllByItem_IdAndStatus(item.getId(), Status.APPROVED).size());
+    }
+
+    @Test
+    void create_whenBookingsRacingOnSameItem_neverApproveOverlappingBookings() throws Exception {
+        List<HttpStatus> statuses = runInParallel(i -> {
+            LocalDateTime bookingStart = start.plusHours(i);
+            Booking booking = bookingService.create(new BookingDto(item.getId(), bookingStart,
+                    bookingStart.plusHours(3)), booker.getId());
+            bookingService.updateApprove(booking.getId(), true, owner.getId());
+        });
+
+        List<Booking> approved = bookingRepository.findAllByItem_IdAndStatus(item.getId(), Status.APPROVED).stream()
+                .sorted((a, b) -> a.getStart().compareTo(b.getStart()))
+                .collect(Collectors.toList());
+        assertFalse(approved.isEmpty());
+        assertEquals(approved.size(), Collections.frequency(statuses, HttpStatus.OK));
+        assertEquals(BOOKINGS - approved.size(), Collections.frequency(statuses, HttpStatus.CONFLICT));
+        for (int i = 1; i < approved.size(); i++) {
+            assertTrue(!approved.get(i).getStart().isBefore(approved.get(i - 1).getEnd()));
+        }
+    }
+
+    @Test
+    void updateApproveAll_whenRejectedBeforeLockIsTaken_returnConflict() {
+        long bookingId = bookingService.create(new BookingDto(item.getId(), start, start.plusHours(2)),
+                booker.getId()).getId();
+        BookingService racingService = racingService(List.of(bookingId));
+
+        List<BookingApproveResultDto> results = racingService.updateApproveAll(
+                new BookingApproveDto(List.of(bookingId), true), owner.getId());
+
+        assertEquals(List.of(new BookingApproveResultDto(bookingId, Result.CONFLICT, Status.REJECTED)), results);
+        assertEquals(Status.REJECTED, bookingRepository.findById(bookingId).orElseThrow().getStatus());
+        assertTrue(bookingRepository.findAllByItem_IdAndStatus(item.getId(), Status.APPROVED).isEmpty());
+    }
+
+    @Test
+    void updateApproveAll_whenOneOfMixedStatusBookingsConflicts_commitNothing() {
+        long waiting = bookingService.create(new BookingDto(item.getId(), start, start.plusHours(1)),
+                booker.getId()).getId();
+        long rejected = bookingService.create(new BookingDto(item.getId(), start.plusHours(2),
+                start.plusHours(3)), booker.getId()).getId();
+        long racing = bookingService.create(new BookingDto(item.getId(), start.plusHours(4),
+                start.plusHours(5)), booker.getId()).getId();
+        bookingService.updateApprove(rejected, false, owner.getId());
+        BookingService racingService = racingService(List.of(racing));
+
+        List<BookingApproveResultDto> results = racingService.updateApproveAll(
+                new BookingApproveDto(List.of(waiting, rejected, racing), true), owner.getId());
+
+        assertEquals(List.of(new BookingApproveResultDto(waiting, Result.CONFLICT, Status.WAITING),
+                new BookingApproveResultDto(rejected, Result.CONFLICT, Status.REJECTED),
+                new BookingApproveResultDto(racing, Result.CONFLICT, Status.REJECTED)), results);
+        assertEquals(Status.WAITING, bookingRepository.findById(waiting).orElseThrow().getStatus());
+        assertEquals(Status.REJECTED, bookingRepository.findById(rejected).orElseThrow().getStatus());
+        assertEquals(Status.REJECTED, bookingRepository.findById(racing).orElseThrow().getStatus());
+        assertTrue(bookingRepository.findAllByItem_IdAndStatus(item.getId(), Status.APPROVED).isEmpty());
+        assertEquals(0, bookingIntervalIndex.get(item.getId()).size());
+    }
+
+    private BookingService racingService(List<Long> rejectedIds) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        ItemLocks racingLocks = new ItemLocks() {
+            @Override
+            public <T> T withLocks(Collection<Long> itemsId, Supplier<T> action) {
+                transactionTemplate.executeWithoutResult(status -> bookingRepository.updateStatus(rejectedIds,
+                        Status.WAITING, Status.REJECTED, owner.getId()));
+                return super.withLocks(itemsId, action);
+            }
+        };
+        return new BookingServiceImpl(itemRepository, bookingRepository, userRepository,
+                userGuard, racingLocks, transactionTemplate, bookingIntervalIndex, objectMapper);
+    }
+
+    private List<HttpStatus> runInParallel(IntConsumer action) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch ready = new CountDownLatch(1);
+        List<Future<HttpStatus>> futures = new ArrayList<>();
+        for (int i = 0; i < BOOKINGS; i++) {
+            int n = i;
+            futures.add(executor.submit(() -> {
+                ready.await();
+                try {
+                    action.accept(n);
+                    return HttpStatus.OK;
+                } catch (ResponseStatusException e) {
+                    return e.getStatus();
+                }
+            }));
+        }
+        ready.countDown();
+        List<HttpStatus> statuses = new ArrayList<>();
+        try {
+            for (Future<HttpStatus> future : futures) {
+                statuses.add(future.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return statuses;
+    }
+}
@@ -0,0 +1,163 @@
+package ru.practicum.shareit.booking.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.dto.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookingIntervalIndexTest {
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 1, 10, 0);
+
+    @Mock
+    private BookingRepository bookingRepository;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private BookingIntervalIndex index;
+    private BookingInterval morning;
+    private BookingInterval noon;
+    private BookingInterval evening;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookingIntervalIndex(bookingRepository, meterRegistry, 2, Duration.ofMinutes(1));
+        morning = new BookingInterval(1L, 1L, 10L, START, START.plusHours(2));
+        noon = new BookingInterval(1L, 2L, 11L, START.plusHours(2), START.plusHours(4));
+        evening = new BookingInterval(1L, 3L, 12L, START.plusHours(8), START.plusHours(10));
+    }
+
+    @Test
+    void isFree_whenRangeTouchesOrOverlapsBookings() {
+        BookingIntervals intervals = BookingIntervals.of(List.of(evening, noon, morning));
+
+        assertTrue(intervals.isFree(START.minusHours(1), START));
+        assertTrue(intervals.isFree(START.plusHours(4), START.plusHours(8)));
+        assertTrue(intervals.isFree(START.plusHours(10), START.plusHours(12)));
+        assertFalse(intervals.isFree(START.plusHours(3), START.plusHours(5)));
+        assertFalse(intervals.isFree(START.plusHours(7), START.plusHours(9)));
+        assertFalse(intervals.isFree(START.minusHours(1), START.plusHours(11)));
+        assertTrue(BookingIntervals.of(List.of()).isFree(START, START.plusHours(1)));
+    }
+
+    @Test
+    void lastAndNext_returnBookingsAroundNow() {
+        BookingIntervals intervals = BookingIntervals.of(List.of(morning, noon, evening));
+
+        assertEquals(Optional.of(noon), intervals.last(START.plusHours(5)));
+        assertEquals(Optional.of(evening), intervals.next(START.plusHours(5)));
+        assertEquals(Optional.empty(), intervals.last(START));
+        assertEquals(Optional.of(noon), intervals.next(START));
+        assertEquals(Optional.empty(), intervals.next(START.plusHours(8)));
+    }
+
+    @Test
+    void get_whenLoadedOnce_serveFromMemory() {
+        whenLoaded(List.of(1L), List.of(morning));
+
+        index.get(1L);
+        BookingIntervals intervals = index.get(1L);
+
+        assertEquals(1, intervals.size());
+        verify(bookingRepository, times(1))
+                .findIntervalsEndingAfter(eq(List.of(1L)), eq(Status.APPROVED), any());
+        assertEquals(1.0, meterRegistry.get("bookings.interval.index.requests").tag("result", "hit")
+                .counter().count());
+        assertEquals(1.0, meterRegistry.get("bookings.interval.index.requests").tag("result", "miss")
+                .counter().count());
+    }
+
+    @Test
+    void putAndRemove_whenItemCached_updateIntervals() {
+        whenLoaded(List.of(1L), List.of(morning));
+        index.get(1L);
+
+        index.put(evening);
+        assertEquals(2, index.get(1L).size());
+        assertEquals(Optional.of(evening), index.get(1L).next(START.plusHours(5)));
+
+        index.remove(1L, evening.getId());
+        assertEquals(1, index.get(1L).size());
+        assertEquals(Optional.empty(), index.get(1L).next(START.plusHours(5)));
+        verify(bookingRepository, times(1))
+                .findIntervalsEndingAfter(eq(List.of(1L)), eq(Status.APPROVED), any());
+    }
+
+    @Test
+    void get_whenEntryExpired_reloadIntervals() {
+        BookingIntervalIndex expiring = new BookingIntervalIndex(bookingRepository, meterRegistry, 2, Duration.ZERO);
+        whenLoaded(List.of(1L), List.of(morning));
+
+        expiring.get(1L);
+        expiring.get(1L);
+
+        verify(bookingRepository, times(2))
+                .findIntervalsEndingAfter(eq(List.of(1L)), eq(Status.APPROVED), any());
+    }
+
+    @Test
+    void get_whenItemHasHistory_keepLatestPastAndFutureBookings() {
+        BookingInterval past = new BookingInterval(1L, 4L, 10L, START.minusDays(2), START.minusDays(1));
+        when(bookingRepository.findLatestEndedIntervals(eq(List.of(1L)), eq(Status.APPROVED), any()))
+                .thenReturn(List.of(past));
+        when(bookingRepository.findIntervalsEndingAfter(eq(List.of(1L)), eq(Status.APPROVED), any()))
+                .thenReturn(List.of(morning, evening));
+
+        BookingIntervals intervals = index.get(1L);
+
+        assertEquals(3, intervals.size());
+        assertEquals(Optional.of(past), intervals.last(START.minusHours(1)));
+        assertEquals(Optional.of(morning), intervals.next(START.minusHours(1)));
+    }
+
+    @Test
+    void isFree_whenWindowStartsBeforeLoadedRange_throwException() {
+        whenLoaded(List.of(1L), List.of(morning));
+        BookingIntervals intervals = index.get(1L);
+
+        assertThrows(IllegalStateException.class,
+                () -> intervals.isFree(LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(1)));
+        assertFalse(intervals.isFree(START.plusHours(1), START.plusHours(3)));
+    }
+
+    @Test
+    void put_whenItemNotCached_doNothing() {
+        index.put(evening);
+
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void get_whenMoreItemsThanLimit_evictEntries() {
+        whenLoaded(List.of(1L, 2L), List.of(morning));
+        whenLoaded(List.of(3L), List.of());
+
+        index.get(List.of(1L, 2L));
+        index.get(3L);
+
+        assertEquals(2, index.size());
+        assertEquals(2.0, meterRegistry.get("bookings.interval.index.items").gauge().value());
+    }
+
+    private void whenLoaded(List<Long> itemsId, List<BookingInterval> intervals) {
+        when(bookingRepository.findLatestEndedIntervals(eq(itemsId), eq(Status.APPROVED), any()))
+                .thenReturn(List.of());
+        when(bookingRepository.findIntervalsEndingAfter(eq(itemsId), eq(Status.APPROVED), any()))
+                .thenReturn(intervals);
+    }
+}
@@ -7,10 +7,22 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
+import ru.practicum.shareit.booking.dto.BookingApproveDto;
+import ru.practicum.shareit.booking.dto.BookingApproveResultDto;
+import ru.practicum.shareit.booking.dto.BookingApproveResultDto.Result;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.dto.BookingShortDto;
 import ru.practicum.shareit.booking.dto.BookingStateDto;
 import ru.practicum.shareit.booking.dto.State;
 import ru.practicum.shareit.booking.dto.Status;
@@ -20,14 +32,17 @@ import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserGuard;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,6 +53,14 @@ class BookingServiceImplTest {
     private ItemRepository itemRepository;
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private UserGuard userGuard;
+    @Spy
+    private ItemLocks itemLocks = new ItemLocks();
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
     @InjectMocks
     private BookingServiceImpl bookingService;
     private User user1;
@@ -101,6 +124,7 @@ class BookingServiceImplTest {
                 .thenReturn(booking);
 
         Booking actualBooking = bookingService.create(bookingDto, user1.getId());
+        verify(bookingRepository).existsOverlapping(item.getId(), Status.APPROVED, START, END, 0L);
         verify(bookingRepository).save(bookingArgumentCaptor.capture());
         Booking savedBooking = bookingArgumentCaptor.getValue();
 
@@ -110,6 +134,23 @@ class BookingServiceImplTest {
         verify(bookingRepository, times(1)).save(any());
     }
 
+    @Test
+    void create_whenApprovedBookingOverlaps_returnConflict() {
+        BookingDto bookingDto = new BookingDto(item.getId(), START, END);
+        when(itemRepository.findById(anyLong()))
+                .thenReturn(Optional.of(item));
+        when(userRepository.findById(anyLong()))
+                .thenReturn(Optional.of(user1));
+        when(bookingRepository.existsOverlapping(item.getId(), Status.APPROVED, START, END, 0L))
+                .thenReturn(true);
+
+        String message = assertThrows(ResponseStatusException.class,
+                () -> bookingService.create(bookingDto, user1.getId())).getMessage();
+
+        assertEquals("409 CONFLICT \"Вещь уже забронирована на эти даты.\"", message);
+        verify(bookingRepository, never()).save(any());
+    }
+
     @Test
     void create_whenBookingDtoNotValidDate_returnException() {
         BookingDto bookingDto = new BookingDto();
@@ -162,6 +203,8 @@ class BookingServiceImplTest {
         updateBooking.setStatus(Status.APPROVED);
         when(bookingRepository.findById(anyLong()))
                 .thenReturn(Optional.of(booking2));
+        when(bookingRepository.existsOverlapping(item.getId(), Status.APPROVED, START, END, booking2.getId()))
+                .thenReturn(false);
         when(bookingRepository.save(any()))
                 .thenReturn(updateBooking);
 
@@ -169,6 +212,8 @@ class BookingServiceImplTest {
                 .updateApprove(1L, true, 2L);
         verify(bookingRepository).save(bookingArgumentCaptor.capture());
         Booking savedBooking = bookingArgumentCaptor.getValue();
+        verify(bookingIntervalIndex).put(new BookingInterval(item.getId(), updateBooking.getId(), user1.getId(),
+                START, END));
 
         assertEquals(Status.APPROVED, actualBooking.getStatus());
         assertEquals(updateBooking.getStart(), savedBooking.getStart());
@@ -177,6 +222,22 @@ class BookingServiceImplTest {
         assertEquals(updateBooking.getItem(), savedBooking.getItem());
     }
 
+    @Test
+    void updateApprove_whenBookingChangedConcurrently_returnConflict() {
+        when(bookingRepository.findById(anyLong()))
+                .thenReturn(Optional.of(booking2));
+        when(bookingRepository.existsOverlapping(item.getId(), Status.APPROVED, START, END, booking2.getId()))
+                .thenReturn(false);
+        when(bookingRepository.save(any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Booking.class, booking2.getId()));
+
+        String message = assertThrows(ResponseStatusException.class,
+                () -> bookingService.updateApprove(1L, true, 2L)).getMessage();
+
+        assertEquals("409 CONFLICT \"Бронирование было изменено параллельно.\"", message);
+        verify(bookingIntervalIndex, never()).put(any());
+    }
+
     @Test
     void updateApprove_whenStatusApproved_returnRejectedBooking() {
         Booking updateBooking = booking;
@@ -190,6 +251,7 @@ class BookingServiceImplTest {
                 .updateApprove(1L, false, 2L);
         verify(bookingRepository).save(bookingArgumentCaptor.capture());
         Booking savedBooking = bookingArgumentCaptor.getValue();
+        verify(bookingIntervalIndex).remove(item.getId(), updateBooking.getId());
 
         assertEquals(Status.REJECTED, actualBooking.getStatus());
         assertEquals(updateBooking.getStart(), savedBooking.getStart());
@@ -198,6 +260,69 @@ class BookingServiceImplTest {
         assertEquals(updateBooking.getItem(), savedBooking.getItem());
     }
 
+    @Test
+    void updateApproveAll_whenRejecting_updateInSingleStatement() {
+        TransactionStatus transaction = whenInTransaction();
+        when(bookingRepository.findAllByIdInAndOwner(Set.of(1L, 3L), user2.getId()))
+                .thenReturn(List.of(booking));
+        when(bookingRepository.updateStatus(List.of(1L), Status.APPROVED, Status.REJECTED, user2.getId()))
+                .thenReturn(1);
+
+        List<BookingApproveResultDto> results = bookingService
+                .updateApproveAll(new BookingApproveDto(List.of(1L, 3L, 1L), false), user2.getId());
+
+        assertEquals(List.of(new BookingApproveResultDto(1L, Result.UPDATED, Status.REJECTED),
+                new BookingApproveResultDto(3L, Result.NOT_FOUND, null)), results);
+        verify(bookingIntervalIndex).remove(item.getId(), 1L);
+        verify(bookingRepository, never()).save(any());
+        assertFalse(transaction.isRollbackOnly());
+    }
+
+    @Test
+    void updateApproveAll_whenApprovedBookingInDatabaseOverlaps_returnConflict() {
+        whenInTransaction();
+        when(bookingRepository.findAllByIdInAndOwner(Set.of(1L), user2.getId()))
+                .thenReturn(List.of(booking2));
+        when(bookingRepository.findIntervals(Set.of(item.getId()), Status.APPROVED, START, END))
+                .thenReturn(List.of(new BookingInterval(item.getId(), 5L, user1.getId(),
+                        END.minusHours(1), END.plusHours(1))));
+
+        List<BookingApproveResultDto> results = bookingService
+                .updateApproveAll(new BookingApproveDto(List.of(1L), true), user2.getId());
+
+        assertEquals(List.of(new BookingApproveResultDto(1L, Result.CONFLICT, Status.REJECTED)), results);
+        verify(bookingRepository, never()).updateStatus(any(), any(), any(), anyLong());
+        verifyNoInteractions(bookingIntervalIndex);
+    }
+
+    @Test
+    void updateApproveAll_whenChangedConcurrently_returnConflict() {
+        Booking canceled = Booking.builder()
+                .id(1L)
+                .start(START)
+                .end(END)
+                .item(item)
+                .booker(user1)
+                .status(Status.CANCELED)
+                .build();
+        TransactionStatus transaction = whenInTransaction();
+        when(bookingRepository.findAllByIdInAndOwner(Set.of(1L), user2.getId()))
+                .thenReturn(List.of(booking2));
+        when(bookingRepository.findIntervals(Set.of(item.getId()), Status.APPROVED, START, END))
+                .thenReturn(List.of());
+        when(bookingRepository.updateStatus(List.of(1L), Status.REJECTED, Status.APPROVED, user2.getId()))
+                .thenReturn(0);
+        when(bookingRepository.findAllByIdInAndOwner(List.of(1L), user2.getId()))
+                .thenReturn(List.of(canceled));
+
+        List<BookingApproveResultDto> results = bookingService
+                .updateApproveAll(new BookingApproveDto(List.of(1L), true), user2.getId());
+
+        assertEquals(List.of(new BookingApproveResultDto(1L, Result.CONFLICT, Status.CANCELED)), results);
+        verify(bookingIntervalIndex, never()).put(any());
+        assertTrue(transaction.isRollbackOnly());
+    }
+
     @Test
     void updateApproved_whenStatusAlreadyRejected_returnException() {
         Booking updateBooking = booking;
@@ -263,15 +388,13 @@ class BookingServiceImplTest {
     void getAllByState_whenStateAll() {
         BookingStateDto bookingStateDto = new BookingStateDto(user1.getId(),
                 State.ALL);
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(user1));
         when(bookingRepository.findByBooker_Id(anyLong(), any()))
                 .thenReturn(Page.empty());
 
-        List<Booking> bookings = bookingService.getAllByState(bookingStateDto, 0, 5);
+        List<BookingShortDto> bookings = bookingService.getAllByState(bookingStateDto, 0, 5).getContent();
 
         assertNotNull(bookings);
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userGuard).checkExists(anyLong(), any());
         verify(bookingRepository, times(1)).findByBooker_Id(anyLong(), any());
     }
 
@@ -279,15 +402,13 @@ class BookingServiceImplTest {
     void getAllByState_whenStateCurrent() {
         BookingStateDto bookingStateDto = new BookingStateDto(user1.getId(),
                 State.CURRENT);
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(user1));
         when(bookingRepository.findCurrentBooking(anyLong(), any(), any()))
                 .thenReturn(Page.empty());
 
-        List<Booking> bookings = bookingService.getAllByState(bookingStateDto, 0, 5);
+        List<BookingShortDto> bookings = bookingService.getAllByState(bookingStateDto, 0, 5).getContent();
 
         assertNotNull(bookings);
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userGuard).checkExists(anyLong(), any());
         verify(bookingRepository, times(1)).findCurrentBooking(anyLong(), any(), any());
     }
 
@@ -295,15 +416,13 @@ class BookingServiceImplTest {
     void getAllByState_whenStatePast() {
         BookingStateDto bookingStateDto = new BookingStateDto(user1.getId(),
                 State.PAST);
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(user1));
         when(bookingRepository.findByBooker_IdAndEndIsBefore(anyLong(), any(), any()))
                 .thenReturn(Page.empty());
 
-        List<Booking> bookings = bookingService.getAllByState(bookingStateDto, 0, 5);
+        List<BookingShortDto> bookings = bookingService.getAllByState(bookingStateDto, 0, 5).getContent();
 
         assertNotNull(bookings);
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userGuard).checkExists(anyLong(), any());
         verify(bookingRepository, times(1)).findByBooker_IdAndEndIsBefore(anyLong(), any(), any());
     }
 
@@ -311,15 +430,13 @@ class BookingServiceImplTest {
     void getAllByState_whenStateFuture() {
         BookingStateDto bookingStateDto = new BookingStateDto(user1.getId(),
                 State.FUTURE);
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(user1));
         when(bookingRepository.findByBooker_IdAndStartIsAfter(anyLong(), any(), any()))
                 .thenReturn(Page.empty());
 
-        List<Booking> bookings = bookingService.getAllByState(bookingStateDto, 0, 5);
+        List<BookingShortDto> bookings = bookingService.getAllByState(bookingStateDto, 0, 5).getContent();
 
         assertNotNull(bookings);
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userGuard).checkExists(anyLong(), any());
         verify(bookingRepository, times(1)).findByBooker_IdAndStartIsAfter(anyLong(), any(), any());
     }
 
@@ -327,15 +444,13 @@ class BookingServiceImplTest {
     void getAllByState_whenStateApproved() {
         BookingStateDto bookingStateDto = new BookingStateDto(user1.getId(),
                 State.APPROVED);
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(user1));
         when(bookingRepository.findBookingByStatus(anyLong(), any(), any()))
                 .thenReturn(Page.empty());
 
-        List<Booking> bookings = bookingService.getAllByState(bookingStateDto, 0, 5);
+        List<BookingShortDto> bookings = bookingService.getAllByState(bookingStateDto, 0, 5).getContent();
 
         assertNotNull(bookings);
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userGuard).checkExists(anyLong(), any());
         verify(bookingRepository, times(1)).findBookingByStatus(anyLong(), any(), any());
     }
 
@@ -343,24 +458,31 @@ class BookingServiceImplTest {
     void getAllByState_whenStateRejected() {
         BookingStateDto bookingStateDto = new BookingStateDto(user1.getId(),
                 State.REJECTED);
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(user1));
         when(bookingRepository.findBookingByStatus(anyLong(), any(), any()))
                 .thenReturn(Page.empty());
 
-        List<Booking> bookings = bookingService.getAllByState(bookingStateDto, 0, 5);
+        List<BookingShortDto> bookings = bookingService.getAllByState(bookingStateDto, 0, 5).getContent();
 
         assertNotNull(bookings);
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userGuard).checkExists(anyLong(), any());
         verify(bookingRepository, times(1)).findBookingByStatus(anyLong(), any(), any());
     }
 
+    @Test
+    void getAllByState_whenUserNotFound_returnException() {
+        BookingStateDto bookingStateDto = new BookingStateDto(99L, State.ALL);
+        doThrow(new ResponseStatusException(HttpStatus.NOT_FOUND, "Пользователь не найден."))
+                .when(userGuard).checkExists(eq(99L), any());
+
+        assertThrows(ResponseStatusException.class,
+                () -> bookingService.getAllByState(bookingStateDto, 0, 5));
+        verifyNoInteractions(bookingRepository);
+    }
+
     @Test
     void getAllByState_whenPageNotValid_returnException() {
         BookingStateDto bookingStateDto = new BookingStateDto(user1.getId(),
                 State.REJECTED);
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(user1));
 
         String message = assertThrows(ArithmeticException.class,
                 () -> bookingService.getAllByState(bookingStateDto, -1, -5)).getMessage();
@@ -373,15 +495,13 @@ class BookingServiceImplTest {
     void getAllByOwner_whenStateAll() {
         BookingStateDto bookingStateDto = new BookingStateDto(user1.getId(),
                 State.ALL);
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(user1));
         when(bookingRepository.findByOwner(anyLong(), any()))
                 .thenReturn(Page.empty());
 
-        List<Booking> bookings = bookingService.getAllByOwner(bookingStateDto, 0, 5);
+        List<BookingShortDto> bookings = bookingService.getAllByOwner(bookingStateDto, 0, 5).getContent();
 
         assertNotNull(bookings);
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userGuard).checkExists(anyLong(), any());
         verify(bookingRepository, times(1)).findByOwner(anyLong(), any());
     }
 
@@ -389,15 +509,13 @@ class BookingServiceImplTest {
     void getAllByOwner_whenStateCurrent() {
         BookingStateDto bookingStateDto = new BookingStateDto(user1.getId(),
                 State.CURRENT);
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(user1));
         when(bookingRepository.findByOwnerCurrentBooking(anyLong(), any(), any()))
                 .thenReturn(Page.empty());
 
-        List<Booking> bookings = bookingService.getAllByOwner(bookingStateDto, 0, 5);
+        List<BookingShortDto> bookings = bookingService.getAllByOwner(bookingStateDto, 0, 5).getContent();
 
         assertNotNull(bookings);
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userGuard).checkExists(anyLong(), any());
         verify(bookingRepository, times(1)).findByOwnerCurrentBooking(anyLong(), any(), any());
     }
 
@@ -405,15 +523,13 @@ class BookingServiceImplTest {
     void getAllByOwner_whenStatePast() {
         BookingStateDto bookingStateDto = new BookingStateDto(user1.getId(),
                 State.PAST);
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(user1));
         when(bookingRepository.findByOwnerPastBooking(anyLong(), any(), any()))
                 .thenReturn(Page.empty());
 
-        List<Booking> bookings = bookingService.getAllByOwner(bookingStateDto, 0, 5);
+        List<BookingShortDto> bookings = bookingService.getAllByOwner(bookingStateDto, 0, 5).getContent();
 
         assertNotNull(bookings);
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userGuard).checkExists(anyLong(), any());
         verify(bookingRepository, times(1)).findByOwnerPastBooking(anyLong(), any(), any());
     }
 
@@ -421,15 +537,13 @@ class BookingServiceImplTest {
     void getAllByOwner_whenStateFuture() {
         BookingStateDto bookingStateDto = new BookingStateDto(user1.getId(),
                 State.FUTURE);
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(user1));
         when(bookingRepository.findByOwnerFutureBooking(anyLong(), any(), any()))
                 .thenReturn(Page.empty());
 
-        List<Booking> bookings = bookingService.getAllByOwner(bookingStateDto, 0, 5);
+        List<BookingShortDto> bookings = bookingService.getAllByOwner(bookingStateDto, 0, 5).getContent();
 
         assertNotNull(bookings);
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userGuard).checkExists(anyLong(), any());
         verify(bookingRepository, times(1)).findByOwnerFutureBooking(anyLong(), any(), any());
     }
 
@@ -437,15 +551,13 @@ class BookingServiceImplTest {
     void getAllByOwner_whenStateApproved() {
         BookingStateDto bookingStateDto = new BookingStateDto(user1.getId(),
                 State.APPROVED);
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(user1));
         when(bookingRepository.findByOwnerByStatus(anyLong(), any(), any()))
                 .thenReturn(Page.empty());
 
-        List<Booking> bookings = bookingService.getAllByOwner(bookingStateDto, 0, 5);
+        List<BookingShortDto> bookings = bookingService.getAllByOwner(bookingStateDto, 0, 5).getContent();
 
         assertNotNull(bookings);
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userGuard).checkExists(anyLong(), any());
         verify(bookingRepository, times(1)).findByOwnerByStatus(anyLong(), any(), any());
     }
 
@@ -453,15 +565,13 @@ class BookingServiceImplTest {
     void getAllByOwner_whenStateRejected() {
         BookingStateDto bookingStateDto = new BookingStateDto(user1.getId(),
                 State.REJECTED);
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(user1));
         when(bookingRepository.findByOwnerByStatus(anyLong(), any(), any()))
                 .thenReturn(Page.empty());
 
-        List<Booking> bookings = bookingService.getAllByOwner(bookingStateDto, 0, 5);
+        List<BookingShortDto> bookings = bookingService.getAllByOwner(bookingStateDto, 0, 5).getContent();
 
         assertNotNull(bookings);
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userGuard).checkExists(anyLong(), any());
         verify(bookingRepository, times(1)).findByOwnerByStatus(anyLong(), any(), any());
     }
 
@@ -469,8 +579,6 @@ class BookingServiceImplTest {
     void getAllByOwner_whenPageNotValid_returnException() {
         BookingStateDto bookingStateDto = new BookingStateDto(user1.getId(),
                 State.REJECTED);
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(user1));
 
         String message = assertThrows(ArithmeticException.class,
                 () -> bookingService.getAllByOwner(bookingStateDto, -1, -5)).getMessage();
@@ -478,4 +586,11 @@ class BookingServiceImplTest {
         assertEquals("Неверный индекс или количество элементов.", message);
         verify(bookingRepository, never()).findByOwnerByStatus(anyLong(), any(), any());
     }
-}
\ No newline at end of file
+
+    private TransactionStatus whenInTransaction() {
+        TransactionStatus transaction = new SimpleTransactionStatus();
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(transaction));
+        return transaction;
+    }
+}
@@ -1,12 +1,24 @@
 package ru.practicum.shareit.booking.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import ru.practicum.shareit.booking.dto.BookingApproveDto;
+import ru.practicum.shareit.booking.dto.BookingApproveResultDto;
+import ru.practicum.shareit.booking.dto.BookingApproveResultDto.Result;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingShortDto;
 import ru.practicum.shareit.booking.dto.BookingStateDto;
 import ru.practicum.shareit.booking.dto.State;
 import ru.practicum.shareit.booking.dto.Status;
@@ -14,24 +26,45 @@ import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.OffsetPage;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserGuard;
 
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
 @Transactional
 @SpringBootTest(
-        properties = "db.name=test",
+        properties = {"db.name=test", "spring.jpa.properties.hibernate.generate_statistics=true"},
         webEnvironment = SpringBootTest.WebEnvironment.NONE)
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 class BookingServiceTest {
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
+    private final UserGuard userGuard;
+    private final BookingIntervalIndex bookingIntervalIndex;
     private final BookingRepository bookingRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ObjectMapper objectMapper;
     private final User user1 = new User();
     private final User user2 = new User();
     private final Item item = new Item();
@@ -39,8 +72,8 @@ class BookingServiceTest {
     private BookingService bookingService;
     private BookingStateDto bookingStateDto;
     private BookingStateDto bookingStateDto2;
-    private static final LocalDateTime start = LocalDateTime.now();
-    private static final LocalDateTime end = LocalDateTime.now().plusHours(5);
+    private static final LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+    private static final LocalDateTime end = start.plusHours(5);
     private final int from = 0;
     private final int size = 5;
 
@@ -48,7 +81,8 @@ class BookingServiceTest {
     @BeforeEach
     public void setUp() {
         bookingService = new BookingServiceImpl(itemRepository,
-                bookingRepository, userRepository);
+                bookingRepository, userRepository, userGuard, new ItemLocks(), transactionTemplate,
+                bookingIntervalIndex, objectMapper);
         user1.setName("user1");
         user1.setEmail("user1@mail.ru");
         userRepository.save(user1);
@@ -90,6 +124,35 @@ class BookingServiceTest {
         assertEquals(booking.getStatus(), Status.APPROVED);
     }
 
+    @Test
+    void updateApproveAll_whenBookingsOverlap_approveFirstAndReportConflict() {
+        Booking first = bookingService.create(bookingDto, user1.getId());
+        Booking overlapping = bookingService.create(new BookingDto(item.getId(), start.plusHours(1),
+                end.plusHours(1)), user1.getId());
+        Booking later = bookingService.create(new BookingDto(item.getId(), end, end.plusHours(1)), user1.getId());
+
+        List<BookingApproveResultDto> results = bookingService.updateApproveAll(new BookingApproveDto(
+                List.of(first.getId(), overlapping.getId(), later.getId(), -1L), true), user2.getId());
+
+        assertEquals(List.of(Result.UPDATED, Result.CONFLICT, Result.UPDATED, Result.NOT_FOUND),
+                results.stream().map(BookingApproveResultDto::getResult).collect(Collectors.toList()));
+        assertEquals(Status.APPROVED, bookingRepository.findById(first.getId()).orElseThrow().getStatus());
+        assertEquals(Status.WAITING, bookingRepository.findById(overlapping.getId()).orElseThrow().getStatus());
+        assertEquals(Status.APPROVED, bookingRepository.findById(later.getId()).orElseThrow().getStatus());
+        assertEquals(2, bookingIntervalIndex.get(item.getId()).size());
+    }
+
+    @Test
+    void updateApproveAll_whenNotOwner_returnNotFound() {
+        Booking booking = bookingService.create(bookingDto, user1.getId());
+
+        List<BookingApproveResultDto> results = bookingService.updateApproveAll(new BookingApproveDto(
+                List.of(booking.getId()), true), user1.getId());
+
+        assertEquals(List.of(new BookingApproveResultDto(booking.getId(), Result.NOT_FOUND, null)), results);
+        assertEquals(Status.WAITING, bookingRepository.findById(booking.getId()).orElseThrow().getStatus());
+    }
+
     @Test
     void getById() {
         Booking booking = bookingService.create(bookingDto, user1.getId());
@@ -106,14 +169,15 @@ class BookingServiceTest {
     void getAllByState() {
         Booking booking = bookingService.create(bookingDto, user1.getId());
 
-        List<Booking> bookings = bookingService
-                .getAllByState(bookingStateDto, from, size);
+        List<BookingShortDto> bookings = bookingService
+                .getAllByState(bookingStateDto, from, size).getContent();
 
         assertEquals(1, bookings.size());
         assertEquals(start, bookings.get(0).getStart());
         assertEquals(end, bookings.get(0).getEnd());
-        assertEquals(item, bookings.get(0).getItem());
-        assertEquals(user1, bookings.get(0).getBooker());
+        assertEquals(item.getId(), bookings.get(0).getItem().getId());
+        assertEquals(item.getName(), bookings.get(0).getItem().getName());
+        assertEquals(user1.getId(), bookings.get(0).getBooker().getId());
         assertEquals(Status.WAITING, booking.getStatus());
     }
 
@@ -121,14 +185,192 @@ class BookingServiceTest {
     void getAllByOwner() {
         Booking booking = bookingService.create(bookingDto, user1.getId());
 
-        List<Booking> bookings = bookingService
-                .getAllByOwner(bookingStateDto2, from, size);
+        List<BookingShortDto> bookings = bookingService
+                .getAllByOwner(bookingStateDto2, from, size).getContent();
 
         assertEquals(1, bookings.size());
         assertEquals(start, bookings.get(0).getStart());
         assertEquals(end, bookings.get(0).getEnd());
-        assertEquals(item, bookings.get(0).getItem());
-        assertEquals(user1, bookings.get(0).getBooker());
+        assertEquals(item.getId(), bookings.get(0).getItem().getId());
+        assertEquals(item.getName(), bookings.get(0).getItem().getName());
+        assertEquals(user1.getId(), bookings.get(0).getBooker().getId());
         assertEquals(Status.WAITING, booking.getStatus());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getAllByOwnerAfter_whenWalkingCursor_returnSameBookingsAsOffsetPages() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        for (int i = 0; i < 7; i++) {
+            LocalDateTime bookingStart = now.plusDays(i / 2 - 1);
+            bookingRepository.save(Booking.builder()
+                    .start(bookingStart)
+                    .end(bookingStart.plusHours(1))
+                    .item(item)
+                    .booker(user1)
+                    .status(i % 2 == 0 ? Status.WAITING : Status.APPROVED)
+                    .build());
+        }
+
+        for (State state : List.of(State.ALL, State.FUTURE, State.PAST, State.WAITING)) {
+            BookingStateDto owner = new BookingStateDto(user2.getId(), state);
+            List<BookingShortDto> walked = new ArrayList<>();
+            String cursor = "";
+            do {
+                CursorPage<BookingShortDto> page = bookingService.getAllByOwnerAfter(owner, cursor, 3);
+                walked.addAll(page.getContent());
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+            List<BookingShortDto> offset = bookingService.getAllByOwner(owner, 0, 100).getContent();
+
+            assertEquals(offset.stream().map(BookingShortDto::getId).sorted().collect(Collectors.toList()),
+                    walked.stream().map(BookingShortDto::getId).sorted().collect(Collectors.toList()));
+            for (int i = 1; i < walked.size(); i++) {
+                BookingShortDto previous = walked.get(i - 1);
+                BookingShortDto current = walked.get(i);
+                assertTrue(previous.getStart().isAfter(current.getStart())
+                        || previous.getStart().isEqual(current.getStart()) && previous.getId() > current.getId());
+            }
+        }
+    }
+
+    @Test
+    void exportByOwner_whenBookingsExist_writeOneJsonLinePerBooking() throws IOException {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        for (int i = 0; i < 7; i++) {
+            LocalDateTime bookingStart = now.plusDays(i / 2 - 1);
+            bookingRepository.save(Booking.builder()
+                    .start(bookingStart)
+                    .end(bookingStart.plusHours(1))
+                    .item(item)
+                    .booker(user1)
+                    .status(i % 2 == 0 ? Status.WAITING : Status.APPROVED)
+                    .build());
+        }
+
+        for (State state : List.of(State.ALL, State.FUTURE, State.WAITING)) {
+            BookingStateDto owner = new BookingStateDto(user2.getId(), state);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            bookingService.exportByOwner(owner, out);
+            String export = out.toString(StandardCharsets.UTF_8);
+            List<JsonNode> exported = new ArrayList<>();
+            for (String line : export.split("\n")) {
+                exported.add(objectMapper.readTree(line));
+            }
+            List<BookingShortDto> offset = bookingService.getAllByOwner(owner, 0, 100).getContent();
+
+            assertTrue(export.endsWith("\n"));
+            assertEquals(offset.stream().map(BookingShortDto::getId).sorted().collect(Collectors.toList()),
+                    exported.stream().map(b -> b.get("id").asLong()).sorted().collect(Collectors.toList()));
+            for (int i = 1; i < exported.size(); i++) {
+                JsonNode previous = exported.get(i - 1);
+                JsonNode current = exported.get(i);
+                LocalDateTime previousStart = LocalDateTime.parse(previous.get("start").asText());
+                LocalDateTime currentStart = LocalDateTime.parse(current.get("start").asText());
+                assertTrue(previousStart.isAfter(currentStart) || previousStart.isEqual(currentStart)
+                        && previous.get("id").asLong() > current.get("id").asLong());
+                assertEquals(item.getName(), current.get("item").get("name").asText());
+            }
+        }
+    }
+
+    @Test
+    void checkExportAllowed_whenUserNotFound_returnNotFound() {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> bookingService.checkExportAllowed(new BookingStateDto(user2.getId() + 100, State.ALL)));
+
+        assertEquals(HttpStatus.NOT_FOUND, e.getStatus());
+    }
+
+    @Test
+    void exportByOwner_whenNoBookings_writeNothing() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        bookingService.exportByOwner(bookingStateDto2, out);
+
+        assertEquals(0, out.size());
+    }
+
+    @Test
+    void getAllByStateAfter_whenLastPage_returnNoCursor() {
+        bookingService.create(bookingDto, user1.getId());
+
+        CursorPage<BookingShortDto> page = bookingService.getAllByStateAfter(bookingStateDto, null, size);
+
+        assertEquals(1, page.getContent().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getAllByOwner_whenMorePagesExist_issueSingleStatementPerState() {
+        for (int i = 0; i < 3; i++) {
+            bookingService.create(new BookingDto(item.getId(), start.plusDays(i + 1), end.plusDays(i + 1)),
+                    user1.getId());
+        }
+        userGuard.checkExists(user1.getId(), "");
+        userGuard.checkExists(user2.getId(), "");
+        entityManager.flush();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        for (State state : List.of(State.ALL, State.FUTURE, State.WAITING)) {
+            statistics.clear();
+            OffsetPage<BookingShortDto> byOwner = bookingService.getAllByOwner(
+                    new BookingStateDto(user2.getId(), state), 0, 2);
+            long ownerStatements = statistics.getPrepareStatementCount();
+            statistics.clear();
+            OffsetPage<BookingShortDto> byBooker = bookingService.getAllByState(
+                    new BookingStateDto(user1.getId(), state), 0, 2);
+
+            assertEquals(2, byOwner.getContent().size());
+            assertEquals(2, byBooker.getContent().size());
+            assertTrue(byOwner.hasNext());
+            assertTrue(byBooker.hasNext());
+            assertEquals(1, ownerStatements);
+            assertEquals(1, statistics.getPrepareStatementCount());
+        }
+    }
+
+    @Test
+    void getAllByOwner_whenAssociationsAreLazy_loadPageInSingleStatementForEveryState()
+            throws JsonProcessingException {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = -2; i <= 2; i++) {
+            bookingRepository.save(Booking.builder()
+                    .start(now.plusDays(i).minusHours(1))
+                    .end(now.plusDays(i).plusHours(1))
+                    .item(item)
+                    .booker(user1)
+                    .status(i % 2 == 0 ? Status.APPROVED : Status.WAITING)
+                    .build());
+        }
+        for (Status status : List.of(Status.REJECTED, Status.CANCELED)) {
+            bookingRepository.save(Booking.builder()
+                    .start(now.plusDays(3))
+                    .end(now.plusDays(4))
+                    .item(item)
+                    .booker(user1)
+                    .status(status)
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        userGuard.checkExists(user1.getId(), "");
+        userGuard.checkExists(user2.getId(), "");
+        ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        for (State state : State.values()) {
+            statistics.clear();
+            List<BookingShortDto> byOwner = bookingService.getAllByOwner(new BookingStateDto(user2.getId(), state), 0, 10).getContent();
+            mapper.writeValueAsString(byOwner);
+            long ownerStatements = statistics.getPrepareStatementCount();
+            statistics.clear();
+            List<BookingShortDto> byBooker = bookingService.getAllByState(new BookingStateDto(user1.getId(), state), 0, 10).getContent();
+            mapper.writeValueAsString(byBooker);
+
+            assertFalse(byOwner.isEmpty(), state.name());
+            assertEquals(byOwner.size(), byBooker.size(), state.name());
+            assertEquals(1, ownerStatements, state.name());
+            assertEquals(1, statistics.getPrepareStatementCount(), state.name());
+        }
+    }
+}
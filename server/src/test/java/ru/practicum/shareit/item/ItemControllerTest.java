@@ -8,17 +8,24 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.framework.ProxyFactory;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.validation.beanvalidation.MethodValidationInterceptor;
+import ru.practicum.shareit.booking.dto.BookingSlot;
+import ru.practicum.shareit.booking.dto.Status;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CommentFromRequestDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemWithDateDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.pagination.OffsetPage;
 
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -97,6 +104,48 @@ class ItemControllerTest {
         verify(itemService, times(1)).create(eq(itemDto), anyLong());
     }
 
+    @SneakyThrows
+    @Test
+    void createAll_whenAllRight_returnOkAndItems() {
+        when(itemService.createAll(anyList(), anyLong()))
+                .thenReturn(List.of(itemDto));
+
+        mvc.perform(post(REQUEST_ITEMS + "/batch")
+                        .content(mapper.writeValueAsString(List.of(itemDto)))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header(REQUEST_HEADER, 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(1)))
+                .andExpect(jsonPath("$[0].id", is(itemDto.getId()), Long.class));
+
+        verify(itemService, times(1)).createAll(eq(List.of(itemDto)), eq(1L));
+    }
+
+    @SneakyThrows
+    @Test
+    void createAll_whenItemNotValid_returnBadRequest() {
+        ProxyFactory validated = new ProxyFactory(itemController);
+        validated.setProxyTargetClass(true);
+        validated.addAdvice(new MethodValidationInterceptor());
+        MockMvc validatingMvc = MockMvcBuilders.standaloneSetup(validated.getProxy()).build();
+        ItemDto withoutName = ItemDto.builder()
+                .description("description")
+                .available(true)
+                .build();
+
+        validatingMvc.perform(post(REQUEST_ITEMS + "/batch")
+                        .content(mapper.writeValueAsString(List.of(itemDto, withoutName)))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header(REQUEST_HEADER, 1))
+                .andExpect(status().isBadRequest());
+
+        verify(itemService, never()).createAll(anyList(), anyLong());
+    }
+
     @SneakyThrows
     @Test
     void createItem_whenItemNotValid_returnException() {
@@ -175,7 +224,7 @@ class ItemControllerTest {
     @Test
     void getAll_whenListItemIsNull_returnOk() {
         when(itemService.getAll(anyLong(), anyInt(), anyInt()))
-                .thenReturn(new ArrayList<>());
+                .thenReturn(new OffsetPage<>(new ArrayList<>(), false));
 
         mvc.perform(get(REQUEST_ITEMS)
                         .characterEncoding(StandardCharsets.UTF_8)
@@ -189,7 +238,7 @@ class ItemControllerTest {
     @Test
     void getAll_whenListItemIsNotNull_returnOkAndListItems() {
         when(itemService.getAll(anyLong(), anyInt(), anyInt()))
-                .thenReturn(List.of(itemWithDateDto));
+                .thenReturn(new OffsetPage<>(List.of(itemWithDateDto), false));
 
         mvc.perform(get(REQUEST_ITEMS)
                         .characterEncoding(StandardCharsets.UTF_8)
@@ -228,7 +277,7 @@ class ItemControllerTest {
         String text = "text";
 
         when(itemService.searchItem(anyString(), anyInt(), anyInt()))
-                .thenReturn(List.of(itemDto));
+                .thenReturn(new OffsetPage<>(List.of(itemDto), true));
 
         mvc.perform(get(REQUEST_ITEMS + "/search")
                         .characterEncoding(StandardCharsets.UTF_8)
@@ -237,9 +286,32 @@ class ItemControllerTest {
                         .header(REQUEST_HEADER, 1)
                         .param(text, text))
                 .andExpect(status().isOk())
+                .andExpect(header().string(OffsetPage.HAS_NEXT_HEADER, "true"))
                 .andExpect(content().json(mapper.writeValueAsString(List.of(itemDto))));
     }
 
+    @SneakyThrows
+    @Test
+    void getAvailability() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 10, 0);
+        LocalDateTime to = from.plusDays(1);
+        ItemAvailabilityDto availability = new ItemAvailabilityDto(1L, from, to,
+                List.of(new BookingSlot(from, from.plusHours(2), Status.APPROVED)),
+                List.of(new ItemAvailabilityDto.FreeSlot(from.plusHours(2), to)));
+        when(itemService.getAvailability(1L, from, to))
+                .thenReturn(availability);
+
+        mvc.perform(get(REQUEST_ITEM_WITH_ID + "/availability")
+                        .param("from", "2030-01-01T10:00:00")
+                        .param("to", "2030-01-02T10:00:00")
+                        .header(REQUEST_HEADER, 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itemId", is(1)))
+                .andExpect(jsonPath("$.busy", hasSize(1)))
+                .andExpect(jsonPath("$.busy[0].status", is("APPROVED")))
+                .andExpect(jsonPath("$.free", hasSize(1)));
+    }
+
     @SneakyThrows
     @Test
     void createComment_whenCommentIsValid_returnOkAndCommentDto() {
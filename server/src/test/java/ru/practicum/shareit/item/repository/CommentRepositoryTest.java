@@ -11,6 +11,7 @@ import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -59,4 +60,13 @@ class CommentRepositoryTest {
         assertEquals(1, comments.size());
         assertTrue(comments.contains(comment));
     }
-}
\ No newline at end of file
+
+    @Test
+    void findCommentsByItem_IdIn() {
+        List<Comment> comments = commentRepository.findCommentsByItem_IdIn(List.of(item.getId()));
+
+        assertEquals(1, comments.size());
+        assertEquals(comment, comments.get(0));
+        assertEquals("user2", comments.get(0).getAuthor().getName());
+    }
+}
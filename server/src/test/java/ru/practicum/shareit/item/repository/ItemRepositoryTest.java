@@ -8,6 +8,7 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.EscapeCharacter;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.RequestRepository;
@@ -19,6 +20,7 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
 class ItemRepositoryTest {
@@ -79,17 +81,49 @@ class ItemRepositoryTest {
     }
 
     @Test
-    void findAllByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndAvailableIsTrue() {
+    void search() {
         String text = "2";
 
-        List<Item> relevantItem = itemRepository
-                .findAllByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndAvailableIsTrue(
-                        text, text, page).getContent();
+        List<Item> relevantItem = itemRepository.search(text, page).getContent();
 
         assertEquals(1, relevantItem.size());
         assertEquals(relevantItem.get(0), item2);
     }
 
+    @Test
+    void search_whenNameMatchesBetter_returnItemsOrderedByRelevance() {
+        Item described = new Item();
+        described.setName("Отвертка");
+        described.setDescription("Подходит к дрели");
+        described.setAvailable(true);
+        described.setOwner(user1);
+        itemRepository.save(described);
+        Item named = new Item();
+        named.setName("Дрель");
+        named.setDescription("Аккумуляторная");
+        named.setAvailable(true);
+        named.setOwner(user1);
+        itemRepository.save(named);
+        Item unavailable = new Item();
+        unavailable.setName("Дрель ударная");
+        unavailable.setDescription("Сломана");
+        unavailable.setAvailable(false);
+        unavailable.setOwner(user1);
+        itemRepository.save(unavailable);
+
+        List<Item> relevantItem = itemRepository.search("ДРЕЛ", page).getContent();
+
+        assertEquals(List.of(named, described), relevantItem);
+    }
+
+    @Test
+    void search_whenTextContainsWildcard_matchLiterally() {
+        List<Item> relevantItem = itemRepository
+                .search(EscapeCharacter.DEFAULT.escape("item%"), page).getContent();
+
+        assertTrue(relevantItem.isEmpty());
+    }
+
     @Test
     void findByRequestId() {
         long requestId = itemRequest.getId();
@@ -100,6 +134,31 @@ class ItemRepositoryTest {
         assertEquals(items.get(0), item2);
     }
 
+    @Test
+    void findByRequestIdIn() {
+        List<Item> items = itemRepository.findByRequestIdIn(List.of(itemRequest.getId(), 0L));
+
+        assertEquals(List.of(item2), items);
+    }
+
+    @Test
+    void findByOwnerAfterCursor() {
+        Item item3 = itemRepository.save(Item.builder()
+                .name("itemName3")
+                .description("itemDescription3")
+                .available(true)
+                .owner(user1)
+                .build());
+
+        List<Item> first = itemRepository.findByOwnerAfterCursor(user1.getId(), 0, PageRequest.of(0, 1))
+                .getContent();
+        List<Item> next = itemRepository.findByOwnerAfterCursor(user1.getId(), item2.getId(), page)
+                .getContent();
+
+        assertEquals(List.of(item2), first);
+        assertEquals(List.of(item3), next);
+    }
+
     @AfterEach
     void deleteDB() {
         itemRepository.deleteAll();
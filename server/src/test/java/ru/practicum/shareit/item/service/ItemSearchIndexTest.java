@@ -0,0 +1,168 @@
+package ru.practicum.shareit.item.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.OffsetPage;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ItemSearchIndexTest {
+    @Mock
+    private ItemRepository itemRepository;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ItemSearchIndex index;
+    private User owner1;
+    private User owner2;
+    private Item drill;
+    private Item screwdriver;
+    private Item hammer;
+
+    @BeforeEach
+    void setUp() {
+        index = new ItemSearchIndex(itemRepository, meterRegistry, true);
+        owner1 = User.builder().id(1L).name("owner1").email("owner1@mail.ru").build();
+        owner2 = User.builder().id(2L).name("owner2").email("owner2@mail.ru").build();
+        drill = Item.builder()
+                .id(1L)
+                .name("Дрель")
+                .description("Аккумуляторная дрель")
+                .available(true)
+                .owner(owner1)
+                .build();
+        screwdriver = Item.builder()
+                .id(2L)
+                .name("Отвертка")
+                .description("Подходит к дрели")
+                .available(true)
+                .owner(owner2)
+                .build();
+        hammer = Item.builder()
+                .id(3L)
+                .name("Молоток")
+                .description("Тяжелый")
+                .available(false)
+                .owner(owner1)
+                .build();
+    }
+
+    @Test
+    void search_whenNotWarmedUp_returnEmptyAndCountMiss() {
+        assertTrue(index.search("дрель", 0, 10).isEmpty());
+        assertEquals(1.0, meterRegistry.get("items.search.index.requests").tag("result", "miss")
+                .counter().count());
+    }
+
+    @Test
+    void search_whenWarmedUp_matchSubstringAndOrderByRelevance() {
+        warmUp(drill, screwdriver, hammer);
+
+        assertEquals(List.of(1L, 2L), ids(index.search("ДРЕЛ", 0, 10)));
+        assertEquals(List.of(1L, 2L), ids(index.search("рел", 0, 10)));
+        assertEquals(List.of(1L), ids(index.search("торная дрель", 0, 10)));
+        assertEquals(List.of(2L), ids(index.search("дрел", 1, 1)));
+        assertEquals(4.0, meterRegistry.get("items.search.index.requests").tag("result", "hit")
+                .counter().count());
+        assertEquals(3.0, meterRegistry.get("items.search.index.documents").gauge().value());
+    }
+
+    @Test
+    void search_whenWordsNotAdjacent_returnNothingLikeDatabase() {
+        warmUp(drill, screwdriver, hammer);
+
+        assertEquals(List.of(), ids(index.search("аккум дрель", 0, 10)));
+    }
+
+    @Test
+    void search_whenQueryShorterThanTrigram_fallBackToDatabase() {
+        warmUp(drill, screwdriver, hammer);
+
+        assertTrue(index.search("др", 0, 10).isEmpty());
+        assertEquals(1.0, meterRegistry.get("items.search.index.requests").tag("result", "miss")
+                .counter().count());
+    }
+
+    @Test
+    void search_whenResultMutated_keepIndexIntact() {
+        warmUp(drill, screwdriver, hammer);
+
+        index.search("дрел", 0, 10).orElseThrow().getContent().forEach(item -> {
+            item.setName("Пила");
+            item.setAvailable(false);
+        });
+
+        List<ItemDto> found = index.search("дрел", 0, 10).orElseThrow().getContent();
+        assertEquals(List.of(1L, 2L), found.stream().map(ItemDto::getId).collect(Collectors.toList()));
+        assertEquals("Дрель", found.get(0).getName());
+    }
+
+    @Test
+    void search_whenItemNotAvailable_skipItem() {
+        warmUp(drill, screwdriver, hammer);
+
+        assertEquals(List.of(), ids(index.search("молоток", 0, 10)));
+    }
+
+    @Test
+    void put_whenItemUpdated_reindexTokens() {
+        warmUp(drill, screwdriver, hammer);
+        hammer.setAvailable(true);
+        drill.setName("Перфоратор");
+        drill.setDescription("Мощный");
+
+        index.put(hammer);
+        index.put(drill);
+
+        assertEquals(List.of(3L), ids(index.search("мол", 0, 10)));
+        assertEquals(List.of(2L), ids(index.search("дрел", 0, 10)));
+        assertEquals(List.of(1L), ids(index.search("перфо", 0, 10)));
+    }
+
+    @Test
+    void removeOwner_whenOwnerDeleted_dropOwnerItems() {
+        warmUp(drill, screwdriver, hammer);
+
+        index.removeOwner(owner1.getId());
+
+        assertEquals(List.of(2L), ids(index.search("дрел", 0, 10)));
+        assertEquals(1.0, meterRegistry.get("items.search.index.documents").gauge().value());
+    }
+
+    @Test
+    void put_whenDisabled_doNothing() {
+        ItemSearchIndex disabled = new ItemSearchIndex(itemRepository, new SimpleMeterRegistry(), false);
+
+        disabled.warmUp();
+        disabled.put(drill);
+
+        assertTrue(disabled.search("дрель", 0, 10).isEmpty());
+        verifyNoInteractions(itemRepository);
+    }
+
+    private void warmUp(Item... items) {
+        when(itemRepository.findAll(any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(items)));
+        index.warmUp();
+    }
+
+    private static List<Long> ids(Optional<OffsetPage<ItemDto>> found) {
+        return found.orElseThrow().getContent().stream().map(ItemDto::getId).collect(Collectors.toList());
+    }
+}
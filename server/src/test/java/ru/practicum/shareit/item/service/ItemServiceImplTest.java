@@ -9,12 +9,19 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.web.server.ResponseStatusException;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.dto.BookingItemDto;
+import ru.practicum.shareit.booking.dto.BookingSlot;
 import ru.practicum.shareit.booking.dto.Status;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingIntervalIndex;
+import ru.practicum.shareit.booking.service.BookingIntervals;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CommentFromRequestDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemWithDateDto;
 import ru.practicum.shareit.item.mapper.CommentMapper;
@@ -23,14 +30,17 @@ import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.OffsetPage;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.RequestRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserGuard;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -46,11 +56,17 @@ class ItemServiceImplTest {
     @Mock
     private UserRepository userRepository;
     @Mock
+    private UserGuard userGuard;
+    @Mock
     private BookingRepository bookingRepository;
     @Mock
     private CommentRepository commentRepository;
     @Mock
     private RequestRepository requestRepository;
+    @Mock
+    private ItemSearchIndex itemSearchIndex;
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
     @InjectMocks
     private ItemServiceImpl itemService;
     private User user1;
@@ -155,6 +171,52 @@ class ItemServiceImplTest {
                 "Добавление/обновление вещи невозможно.\"", message);
     }
 
+    @Test
+    void createAll_whenItemsValid_saveAllInOneCall() {
+        ItemDto second = ItemDto.builder()
+                .name("second")
+                .description("secondDescription")
+                .available(true)
+                .build();
+        when(userRepository.findById(user1.getId()))
+                .thenReturn(Optional.of(user1));
+        when(requestRepository.findAllById(Set.of(itemRequest.getId())))
+                .thenReturn(List.of(itemRequest));
+        when(itemRepository.saveAll(any()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<ItemDto> created = itemService.createAll(List.of(itemDto, second), user1.getId());
+
+        assertEquals(2, created.size());
+        assertEquals(itemRequest.getId(), created.get(0).getRequestId());
+        assertNull(created.get(1).getRequestId());
+        verify(itemRepository, never()).save(any());
+        verify(itemSearchIndex, times(2)).put(any());
+    }
+
+    @Test
+    void createAll_whenRequestNotFound_returnException() {
+        when(userRepository.findById(user1.getId()))
+                .thenReturn(Optional.of(user1));
+        when(requestRepository.findAllById(Set.of(itemRequest.getId())))
+                .thenReturn(List.of());
+
+        String message = assertThrows(ResponseStatusException.class,
+                () -> itemService.createAll(List.of(itemDto), user1.getId())).getMessage();
+
+        assertEquals("404 NOT_FOUND \"Несуществующий запрос: id = " + itemRequest.getId() + "\"", message);
+        verify(itemRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void createAll_whenBatchEmpty_returnException() {
+        String message = assertThrows(ResponseStatusException.class,
+                () -> itemService.createAll(List.of(), user1.getId())).getMessage();
+
+        assertEquals("400 BAD_REQUEST \"Неверное количество вещей в пакете: 0\"", message);
+        verifyNoInteractions(itemRepository);
+    }
+
     @Test
     void update_whenItemIsValidAndWithNewName_returnOkAndItem() {
         Item updateItem = Item.builder()
@@ -170,8 +232,6 @@ class ItemServiceImplTest {
                 .request(itemRequest)
                 .build();
 
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(user1));
         when(itemRepository.findById(anyLong()))
                 .thenReturn(Optional.of(item1));
         when(itemRepository.getReferenceById(anyLong()))
@@ -207,8 +267,6 @@ class ItemServiceImplTest {
                 .request(itemRequest)
                 .build();
 
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(user1));
         when(itemRepository.findById(anyLong()))
                 .thenReturn(Optional.of(item1));
         when(itemRepository.getReferenceById(anyLong()))
@@ -244,8 +302,6 @@ class ItemServiceImplTest {
                 .request(itemRequest)
                 .build();
 
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(user1));
         when(itemRepository.findById(anyLong()))
                 .thenReturn(Optional.of(item1));
         when(itemRepository.getReferenceById(anyLong()))
@@ -270,8 +326,6 @@ class ItemServiceImplTest {
     void update_whenOwnerIdNotEqualsUserId_returnExceptionAndRightMessage() {
         when(itemRepository.getReferenceById(anyLong()))
                 .thenReturn(item1);
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(user1));
 
         String message = assertThrows(ResponseStatusException.class,
                 () -> itemService.update(item1, 2L, 1L)).getMessage();
@@ -283,13 +337,41 @@ class ItemServiceImplTest {
     void getAll_whenPageValid_returnListItemWithDateDto() {
         when(itemRepository.findByOwnerId(anyLong(), any()))
                 .thenReturn(Page.empty());
-        when(bookingRepository.findAllByItem_IdInAndStatus(any(), any()))
-                .thenReturn(Collections.emptyList());
 
-        List<ItemWithDateDto> listItems = itemService.getAll(1L, 0, 1);
+        List<ItemWithDateDto> listItems = itemService.getAll(1L, 0, 1).getContent();
 
         assertTrue(listItems.isEmpty());
         assertNotNull(listItems);
+        verify(commentRepository, never()).findCommentsByItem_IdIn(any());
+    }
+
+    @Test
+    void getAll_whenItemsWithComments_returnCommentsGroupedByItem() {
+        Item item3 = Item.builder()
+                .id(3L)
+                .name("itemName3")
+                .description("itemDescription3")
+                .available(true)
+                .owner(user1)
+                .build();
+        comment.setId(1L);
+        comment.setText("comment");
+        comment.setItem(item1);
+        comment.setAuthor(user2);
+        when(itemRepository.findByOwnerId(anyLong(), any()))
+                .thenReturn(new PageImpl<>(List.of(item1, item3)));
+        when(bookingIntervalIndex.get(List.of(item1.getId(), item3.getId())))
+                .thenReturn(Map.of(item1.getId(), BookingIntervals.of(List.of()),
+                        item3.getId(), BookingIntervals.of(List.of())));
+        when(commentRepository.findCommentsByItem_IdIn(List.of(item1.getId(), item3.getId())))
+                .thenReturn(List.of(comment));
+
+        List<ItemWithDateDto> listItems = itemService.getAll(1L, 0, 2).getContent();
+
+        assertEquals(2, listItems.size());
+        assertEquals(Set.of(CommentMapper.commentDto(comment)), listItems.get(0).getComments());
+        assertNull(listItems.get(1).getComments());
+        verify(commentRepository, never()).findCommentsByItem_Id(anyLong());
     }
 
     @Test
@@ -318,6 +400,8 @@ class ItemServiceImplTest {
 
         when(itemRepository.findById(anyLong()))
                 .thenReturn(Optional.of(item1));
+        when(bookingIntervalIndex.get(List.of(item1.getId())))
+                .thenReturn(Map.of(item1.getId(), BookingIntervals.of(List.of())));
         when(commentRepository.findCommentsByItem_Id(anyLong()))
                 .thenReturn(Set.of(comment));
         ItemWithDateDto actualItem = itemService.getById(1L, 1L);
@@ -336,6 +420,8 @@ class ItemServiceImplTest {
     void getById_whenValidItemToNotOwnerWithoutComment_returnItemWithDateDtoWithoutBooking() {
         when(itemRepository.findById(anyLong()))
                 .thenReturn(Optional.of(item1));
+        when(bookingIntervalIndex.get(List.of(item1.getId())))
+                .thenReturn(Map.of(item1.getId(), BookingIntervals.of(List.of())));
         when(commentRepository.findCommentsByItem_Id(anyLong()))
                 .thenReturn(Collections.emptySet());
         ItemWithDateDto actualItem = itemService.getById(1L, 1L);
@@ -349,6 +435,26 @@ class ItemServiceImplTest {
         assertTrue(actualItem.getComments().isEmpty());
     }
 
+    @Test
+    void getById_whenOwner_returnItemWithDateDtoWithBookings() {
+        LocalDateTime now = LocalDateTime.now();
+        BookingInterval past = new BookingInterval(item1.getId(), 1L, user2.getId(),
+                now.minusDays(3), now.minusDays(2));
+        BookingInterval longPast = new BookingInterval(item1.getId(), 2L, user2.getId(),
+                now.minusDays(4), now.minusDays(1));
+        when(itemRepository.findById(anyLong()))
+                .thenReturn(Optional.of(item1));
+        when(bookingIntervalIndex.get(List.of(item1.getId())))
+                .thenReturn(Map.of(item1.getId(), BookingIntervals.of(List.of(past, longPast))));
+        when(commentRepository.findCommentsByItem_Id(anyLong()))
+                .thenReturn(Collections.emptySet());
+
+        ItemWithDateDto actualItem = itemService.getById(user1.getId(), item1.getId());
+
+        assertEquals(new BookingItemDto(2L, user2.getId()), actualItem.getLastBooking());
+        assertNull(actualItem.getNextBooking());
+    }
+
     @Test
     void getById_whenItemNotFound_returnException() {
         when(itemRepository.findById(anyLong()))
@@ -361,18 +467,88 @@ class ItemServiceImplTest {
 
     }
 
+    @Test
+    void getAvailability_whenBookingsInWindow_returnBusyAndFreeSlots() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(1);
+        when(itemRepository.findById(item1.getId()))
+                .thenReturn(Optional.of(item1));
+        when(bookingRepository.findSlots(item1.getId(), List.of(Status.APPROVED, Status.WAITING), from, to))
+                .thenReturn(List.of(
+                        new BookingSlot(from.minusHours(2), from.plusHours(2), Status.APPROVED),
+                        new BookingSlot(from.plusHours(6), from.plusHours(9), Status.WAITING),
+                        new BookingSlot(from.plusHours(8), from.plusHours(10), Status.APPROVED),
+                        new BookingSlot(from.plusHours(20), to.plusHours(3), Status.WAITING)));
+
+        ItemAvailabilityDto availability = itemService.getAvailability(item1.getId(), from, to);
+
+        assertEquals(from, availability.getBusy().get(0).getStart());
+        assertEquals(to, availability.getBusy().get(3).getEnd());
+        assertEquals(List.of(
+                new ItemAvailabilityDto.FreeSlot(from.plusHours(2), from.plusHours(6)),
+                new ItemAvailabilityDto.FreeSlot(from.plusHours(10), from.plusHours(20))), availability.getFree());
+    }
+
+    @Test
+    void getAvailability_whenNoBookings_returnWholeWindowFree() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(1);
+        when(itemRepository.findById(item1.getId()))
+                .thenReturn(Optional.of(item1));
+        when(bookingRepository.findSlots(item1.getId(), List.of(Status.APPROVED, Status.WAITING), from, to))
+                .thenReturn(List.of());
+
+        ItemAvailabilityDto availability = itemService.getAvailability(item1.getId(), from, to);
+
+        assertTrue(availability.getBusy().isEmpty());
+        assertEquals(List.of(new ItemAvailabilityDto.FreeSlot(from, to)), availability.getFree());
+    }
+
+    @Test
+    void getAvailability_whenWindowNotValid_returnException() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+        String message = assertThrows(ResponseStatusException.class,
+                () -> itemService.getAvailability(item1.getId(), from, from)).getMessage();
+
+        assertEquals("400 BAD_REQUEST \"Неверный интервал дат.\"", message);
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void getAvailability_whenItemNotFound_returnException() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        when(itemRepository.findById(anyLong()))
+                .thenReturn(Optional.empty());
+
+        String message = assertThrows(ResponseStatusException.class,
+                () -> itemService.getAvailability(1L, from, from.plusDays(1))).getMessage();
+
+        assertEquals("404 NOT_FOUND \"Вещь не найдена.\"", message);
+    }
+
     @Test
     void searchItem() {
-        when(itemRepository.findAllByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndAvailableIsTrue(
-                anyString(), anyString(), any()))
+        when(itemRepository.search(anyString(), any()))
                 .thenReturn(Page.empty());
 
-        List<ItemDto> list = itemService.searchItem("text", 1, 2);
+        List<ItemDto> list = itemService.searchItem("text", 1, 2).getContent();
 
         assertTrue(list.isEmpty());
         assertNotNull(list);
     }
 
+    @Test
+    void searchItem_whenIndexReady_returnIndexedItemsWithoutRepository() {
+        when(itemSearchIndex.search("item", 0, 2))
+                .thenReturn(Optional.of(new OffsetPage<>(List.of(itemDto), false)));
+
+        List<ItemDto> list = itemService.searchItem("item", 0, 2).getContent();
+
+        assertEquals(List.of(itemDto), list);
+        verify(itemRepository, never()).search(anyString(), any());
+    }
+
     @Test
     void searchItem_whenPageNotValid_returnException() {
         String nullablePage = assertThrows(ArithmeticException.class,
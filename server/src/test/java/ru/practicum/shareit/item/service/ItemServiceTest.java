@@ -1,14 +1,20 @@
 package ru.practicum.shareit.item.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.BeforeEach;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.query.EscapeCharacter;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.dto.Status;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingIntervalIndex;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CommentFromRequestDto;
 import ru.practicum.shareit.item.dto.ItemDto;
@@ -22,15 +28,20 @@ import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.RequestRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserGuard;
 
+import javax.persistence.EntityManagerFactory;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @Transactional
 @SpringBootTest(
-        properties = "db.name=test",
+        properties = {"db.name=test", "spring.jpa.properties.hibernate.generate_statistics=true"},
         webEnvironment = SpringBootTest.WebEnvironment.NONE)
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 class ItemServiceTest {
@@ -39,6 +50,10 @@ class ItemServiceTest {
     private final BookingRepository bookingRepository;
     private final CommentRepository commentRepository;
     private final RequestRepository requestRepository;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ItemSearchIndex itemSearchIndex;
+    private final UserGuard userGuard;
+    private final BookingIntervalIndex bookingIntervalIndex;
     private final User user1 = new User();
     private final User user2 = new User();
     private final ItemRequest itemRequest = new ItemRequest();
@@ -53,7 +68,8 @@ class ItemServiceTest {
     @BeforeEach
     public void setUp() {
         itemService = new ItemServiceImpl(userRepository, itemRepository,
-                bookingRepository, commentRepository, requestRepository);
+                bookingRepository, commentRepository, requestRepository, itemSearchIndex, userGuard,
+                bookingIntervalIndex);
         user1.setName("user1");
         user1.setEmail("user1@mail.ru");
         userRepository.save(user1);
@@ -112,7 +128,7 @@ class ItemServiceTest {
         bookingRepository.save(nextBooking);
         comment.setItem(item);
         commentRepository.save(comment);
-        List<ItemWithDateDto> listItems = itemService.getAll(user1.getId(), 0, 5);
+        List<ItemWithDateDto> listItems = itemService.getAll(user1.getId(), 0, 5).getContent();
 
         assertEquals(1, listItems.size());
         assertEquals(listItems.get(0).getId(), item.getId());
@@ -124,6 +140,58 @@ class ItemServiceTest {
         assertNotNull(listItems.get(0).getComments());
     }
 
+    @Test
+    void createAll_whenManyItems_insertInJdbcBatches() {
+        List<ItemDto> items = IntStream.range(0, 120)
+                .mapToObj(i -> ItemDto.builder()
+                        .name("item" + i)
+                        .description("description" + i)
+                        .available(true)
+                        .requestId(itemRequest.getId())
+                        .build())
+                .collect(Collectors.toList());
+        itemRepository.flush();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        List<ItemDto> created = itemService.createAll(items, user1.getId());
+        itemRepository.flush();
+
+        assertEquals(120, created.size());
+        assertEquals(120, created.stream().map(ItemDto::getId).distinct().count());
+        assertEquals(120, statistics.getEntityInsertCount());
+        assertTrue(statistics.getPrepareStatementCount() < 20,
+                "Вставка не сгруппирована в пакеты: " + statistics.getPrepareStatementCount());
+        assertEquals(120, itemRepository.findByRequestId(itemRequest.getId()).size());
+    }
+
+    @Test
+    void getAll_whenPageGrows_statementCountDoesNotGrow() {
+        for (int i = 0; i < 5; i++) {
+            ItemDto createdItem = itemService.create(itemDto, user1.getId());
+            Comment itemComment = new Comment();
+            itemComment.setText("text" + i);
+            itemComment.setAuthor(user2);
+            itemComment.setItem(ItemMapper.toItem(createdItem, user1));
+            itemComment.setCreated(LocalDateTime.now());
+            commentRepository.save(itemComment);
+        }
+        commentRepository.flush();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        List<ItemWithDateDto> onePage = itemService.getAll(user1.getId(), 0, 1).getContent();
+        long onePageStatements = statistics.getPrepareStatementCount();
+        statistics.clear();
+        List<ItemWithDateDto> fivePage = itemService.getAll(user1.getId(), 0, 5).getContent();
+        long fivePageStatements = statistics.getPrepareStatementCount();
+
+        assertEquals(1, onePage.size());
+        assertEquals(5, fivePage.size());
+        assertTrue(fivePage.stream().allMatch(i -> i.getComments().size() == 1));
+        assertEquals(onePageStatements, fivePageStatements);
+    }
+
     @Test
     void getById() {
         ItemDto createdItem = itemService.create(itemDto, user1.getId());
@@ -151,7 +219,7 @@ class ItemServiceTest {
     void searchItem() {
         itemService.create(itemDto, user2.getId());
         String text = "itemDtoName";
-        List<ItemDto> items = itemService.searchItem(text, 0, 5);
+        List<ItemDto> items = itemService.searchItem(text, 0, 5).getContent();
 
         assertEquals(1, items.size());
         assertEquals(items.get(0).getName(), itemDto.getName());
@@ -160,6 +228,29 @@ class ItemServiceTest {
         assertEquals(items.get(0).getRequestId(), itemDto.getRequestId());
     }
 
+    @Test
+    void searchItem_whenIndexEnabled_returnSameItemsAsDatabase() {
+        Map<String, String> catalog = Map.of(
+                "Дрель", "Аккумуляторная дрель",
+                "Отвертка", "Подходит к дрели",
+                "Дрель ударная", "50% мощности",
+                "Перфоратор", "Мощнее дрели");
+        catalog.forEach((name, description) -> itemService.create(ItemDto.builder()
+                .name(name)
+                .description(description)
+                .available(true)
+                .build(), user2.getId()));
+        ItemSearchIndex enabled = new ItemSearchIndex(itemRepository, new SimpleMeterRegistry(), true);
+        enabled.warmUp();
+
+        for (String query : List.of("дрель", "ДРЕЛ", "рел", "ная дрель", "аккум дрель", "50%", "ощн", "пила")) {
+            List<ItemDto> fromDatabase = ItemMapper.toItemDto(itemRepository
+                    .search(EscapeCharacter.DEFAULT.escape(query), PageRequest.of(0, 10)).getContent());
+
+            assertEquals(fromDatabase, enabled.search(query, 0, 10).orElseThrow().getContent(), query);
+        }
+    }
+
     @Test
     void createComment() {
         ItemDto createItem = itemService.create(itemDto, user2.getId());
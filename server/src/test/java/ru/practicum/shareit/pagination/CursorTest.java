@@ -0,0 +1,55 @@
+package ru.practicum.shareit.pagination;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorTest {
+    @Test
+    void decode_whenEncoded_returnSamePosition() {
+        Cursor cursor = new Cursor(LocalDateTime.of(2022, 9, 1, 12, 30, 15, 123000), 42);
+
+        Cursor decoded = Cursor.decode(cursor.encode(), Cursor.descending());
+
+        assertEquals(cursor.getPosition(), decoded.getPosition());
+        assertEquals(42, decoded.getId());
+        assertEquals(7, Cursor.decode(new Cursor(null, 7).encode(), Cursor.descending()).getId());
+        assertNull(Cursor.decode(new Cursor(null, 7).encode(), Cursor.descending()).getPosition());
+    }
+
+    @Test
+    void decode_whenBlank_returnFirst() {
+        Cursor first = Cursor.ascending();
+
+        assertSame(first, Cursor.decode("", first));
+        assertSame(first, Cursor.decode(null, first));
+    }
+
+    @Test
+    void decode_whenGarbage_returnBadRequest() {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> Cursor.decode("not a cursor!", Cursor.ascending()));
+
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatus());
+        assertThrows(ResponseStatusException.class, () -> Cursor.decode("MTIz", Cursor.ascending()));
+    }
+
+    @Test
+    void of_whenSliceHasNext_encodeLastElement() {
+        CursorPage<Long> page = CursorPage.of(new SliceImpl<>(List.of(1L, 2L), PageRequest.of(0, 2), true),
+                id -> new Cursor(null, id));
+        CursorPage<Long> last = CursorPage.of(new SliceImpl<>(List.of(3L), PageRequest.of(0, 2), false),
+                id -> new Cursor(null, id));
+
+        assertEquals(2, Cursor.decode(page.getNextCursor(), Cursor.ascending()).getId());
+        assertNull(last.getNextCursor());
+        assertFalse(last.toResponseEntity().getHeaders().containsKey(Cursor.NEXT_CURSOR_HEADER));
+    }
+}
@@ -11,6 +11,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.practicum.shareit.pagination.OffsetPage;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.service.ItemRequestService;
@@ -123,7 +124,7 @@ class ItemRequestControllerTest {
     @Test
     void getAll() {
         when(itemRequestService.getAll(anyLong(), anyInt(), anyInt()))
-                .thenReturn(Collections.emptyList());
+                .thenReturn(new OffsetPage<>(Collections.emptyList(), false));
 
         mvc.perform(get(REQUEST_REQUESTS + "/all")
                         .characterEncoding(StandardCharsets.UTF_8)
@@ -132,6 +133,7 @@ class ItemRequestControllerTest {
                         .param("from", "0")
                         .param("size", "5"))
                 .andExpect(status().isOk())
+                .andExpect(header().string(OffsetPage.HAS_NEXT_HEADER, "false"))
                 .andExpect(content().json("[]"));
     }
 }
\ No newline at end of file
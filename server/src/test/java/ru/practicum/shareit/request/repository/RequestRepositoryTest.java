@@ -8,14 +8,18 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import ru.practicum.shareit.pagination.Cursor;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 @DataJpaTest
@@ -47,19 +51,46 @@ class RequestRepositoryTest {
     }
 
     @Test
-    void findByRequestorId() {
-        List<ItemRequest> requests = requestRepository.findByRequestorId(user.getId());
+    void findByRequestorIdOrderByCreatedDesc() {
+        ItemRequest older = requestRepository.save(ItemRequest.builder()
+                .description("olderDescription")
+                .requestor(user)
+                .created(itemRequest.getCreated().minusDays(1))
+                .build());
 
-        assertEquals(1, requests.size());
-        assertEquals(requests.get(0), itemRequest);
+        List<ItemRequest> requests = requestRepository.findByRequestorIdOrderByCreatedDesc(user.getId());
+
+        assertEquals(List.of(itemRequest, older), requests);
     }
 
     @Test
-    void findAll() {
-        List<ItemRequest> requests = requestRepository.findAll(page).getContent();
+    void findOthers() {
+        User other = userRepository.save(User.builder().name("user2").email("user2@mail.ru").build());
+
+        List<ItemRequest> requests = requestRepository.findOthers(other.getId(), page).getContent();
 
         assertEquals(1, requests.size());
         assertEquals(requests.get(0), itemRequest);
+        assertEquals(List.of(), requestRepository.findOthers(user.getId(), page).getContent());
+    }
+
+    @Test
+    void findOthersAfterCursor() {
+        User other = userRepository.save(User.builder().name("user2").email("user2@mail.ru").build());
+        ItemRequest otherRequest = requestRepository.save(ItemRequest.builder()
+                .description("otherDescription")
+                .requestor(other)
+                .created(LocalDateTime.now().minusDays(1).truncatedTo(ChronoUnit.SECONDS))
+                .build());
+
+        Slice<ItemRequest> requests = requestRepository.findOthersAfterCursor(user.getId(),
+                Cursor.MAX_POSITION, Long.MAX_VALUE, page);
+        Slice<ItemRequest> afterLast = requestRepository.findOthersAfterCursor(user.getId(),
+                otherRequest.getCreated(), otherRequest.getId(), page);
+
+        assertEquals(List.of(otherRequest), requests.getContent());
+        assertFalse(requests.hasNext());
+        assertEquals(List.of(), afterLast.getContent());
     }
 
     @AfterEach
@@ -8,9 +8,9 @@ import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.web.server.ResponseStatusException;
+import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
@@ -19,12 +19,14 @@ import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.RequestRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserGuard;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -37,6 +39,8 @@ class ItemRequestServiceImplTest {
     @Mock
     private UserRepository userRepository;
     @Mock
+    private UserGuard userGuard;
+    @Mock
     private RequestRepository requestRepository;
     @Mock
     private ItemRepository itemRepository;
@@ -98,8 +102,6 @@ class ItemRequestServiceImplTest {
     void getById_whenItemRequestDtoIsValid_returnItemRequestDto() {
         ItemRequestDto expectedRequest = RequestMapper.requestToDto(itemRequest);
         expectedRequest.setItems(new HashSet<>());
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(user1));
         when(requestRepository.findById(anyLong()))
                 .thenReturn(Optional.of(itemRequest));
         when(itemRepository.findByRequestId(anyLong()))
@@ -112,8 +114,6 @@ class ItemRequestServiceImplTest {
 
     @Test
     void getById_whenItemRequestDtoNitFound_returnException() {
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(user1));
         when(requestRepository.findById(anyLong()))
                 .thenReturn(Optional.empty());
 
@@ -127,12 +127,10 @@ class ItemRequestServiceImplTest {
     void getAllByRequestor() {
         ItemRequestDto expectedRequest = RequestMapper.requestToDto(itemRequest);
         expectedRequest.setItems(new HashSet<>());
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(user1));
-        when(requestRepository.findByRequestorId(anyLong()))
+        when(requestRepository.findByRequestorIdOrderByCreatedDesc(anyLong()))
                 .thenReturn(List.of(itemRequest));
-        when(itemRepository.findByRequestId(anyLong()))
-                .thenReturn(List.of(item));
+        when(itemRepository.findByRequestIdIn(List.of(itemRequest.getId())))
+                .thenReturn(List.of());
 
         List<ItemRequestDto> actualRequest = requestService.getAllByRequestor(1L);
 
@@ -143,23 +141,61 @@ class ItemRequestServiceImplTest {
     }
 
     @Test
-    void getAll() {
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(user1));
-        when(requestRepository.findAll((Pageable) any()))
-                .thenReturn(Page.empty());
-        when(itemRepository.findAll())
+    void getAllByRequestor_whenRequestIdDiffersFromUserId_groupItemsByRequest() {
+        ItemRequest otherRequest = ItemRequest.builder()
+                .id(5L)
+                .description("otherDescription")
+                .requestor(user1)
+                .created(CREATE.minusDays(1))
+                .build();
+        item.setRequest(otherRequest);
+        when(requestRepository.findByRequestorIdOrderByCreatedDesc(user1.getId()))
+                .thenReturn(List.of(itemRequest, otherRequest));
+        when(itemRepository.findByRequestIdIn(List.of(1L, 5L)))
                 .thenReturn(List.of(item));
 
-        List<ItemRequestDto> actualRequest = requestService.getAll(1L, 1, 5);
+        List<ItemRequestDto> actualRequest = requestService.getAllByRequestor(user1.getId());
+
+        assertEquals(List.of(1L, 5L), List.of(actualRequest.get(0).getId(), actualRequest.get(1).getId()));
+        assertEquals(Set.of(), actualRequest.get(0).getItems());
+        assertEquals(Set.of(ItemMapper.toItemDto(item)), actualRequest.get(1).getItems());
+        verify(itemRepository, never()).findByRequestId(anyLong());
+    }
+
+    @Test
+    void getAll() {
+        when(requestRepository.findOthers(anyLong(), any()))
+                .thenReturn(new SliceImpl<>(List.of()));
+
+        List<ItemRequestDto> actualRequest = requestService.getAll(1L, 1, 5).getContent();
 
         assertEquals(0, actualRequest.size());
+        verifyNoInteractions(itemRepository);
+    }
+
+    @Test
+    void getAll_whenPageHasRequests_loadItemsOnlyForPage() {
+        ItemRequest emptyRequest = ItemRequest.builder()
+                .id(2L)
+                .description("emptyDescription")
+                .requestor(user1)
+                .created(CREATE.minusDays(1))
+                .build();
+        item.setRequest(itemRequest);
+        when(requestRepository.findOthers(anyLong(), any()))
+                .thenReturn(new SliceImpl<>(List.of(itemRequest, emptyRequest)));
+        when(itemRepository.findByRequestIdIn(List.of(1L, 2L)))
+                .thenReturn(List.of(item));
+
+        List<ItemRequestDto> actualRequest = requestService.getAll(2L, 0, 5).getContent();
+
+        assertEquals(Set.of(ItemMapper.toItemDto(item)), actualRequest.get(0).getItems());
+        assertEquals(Set.of(), actualRequest.get(1).getItems());
+        verify(itemRepository, never()).findAll();
     }
 
     @Test
     void getAll_whenPageNotValid() {
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(user1));
         String message = assertThrows(ArithmeticException.class,
                 () -> requestService.getAll(1L, -5, -5)).getMessage();
 
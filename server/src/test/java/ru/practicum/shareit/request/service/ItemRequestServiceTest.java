@@ -13,6 +13,7 @@ import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.RequestRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserGuard;
 
 import java.util.List;
 
@@ -27,6 +28,7 @@ class ItemRequestServiceTest {
     private final RequestRepository requestRepository;
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
+    private final UserGuard userGuard;
     private final ItemRequest itemRequest = new ItemRequest();
     private ItemRequestService itemRequestService;
     private final User user1 = new User();
@@ -36,7 +38,7 @@ class ItemRequestServiceTest {
     @BeforeEach
     public void setUp() {
         itemRequestService = new ItemRequestServiceImpl(userRepository,
-                requestRepository, itemRepository);
+                requestRepository, itemRepository, userGuard);
         user1.setName("user1");
         user1.setEmail("user1@mail.ru");
         userRepository.save(user1);
@@ -90,7 +92,7 @@ class ItemRequestServiceTest {
     void getAll() {
         itemRequestService.create(itemRequest, user2.getId());
         List<ItemRequestDto> requestDtos = itemRequestService
-                .getAll(user1.getId(), 0, 5);
+                .getAll(user1.getId(), 0, 5).getContent();
 
         assertEquals(1, requestDtos.size());
         assertEquals(itemRequest.getDescription(), requestDtos.get(0).getDescription());
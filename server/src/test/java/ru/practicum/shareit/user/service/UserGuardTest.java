@@ -0,0 +1,88 @@
+package ru.practicum.shareit.user.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.server.ResponseStatusException;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserGuardTest {
+    @Mock
+    private UserRepository userRepository;
+    private UserGuard userGuard;
+
+    @BeforeEach
+    void setUp() {
+        userGuard = new UserGuard(userRepository, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void exists_whenUserFound_rememberUser() {
+        when(userRepository.existsById(1L)).thenReturn(true);
+
+        assertTrue(userGuard.exists(1L));
+        assertTrue(userGuard.exists(1L));
+        verify(userRepository, times(1)).existsById(1L);
+    }
+
+    @Test
+    void exists_whenTtlExpired_recheckRepository() {
+        UserGuard expiringGuard = new UserGuard(userRepository, Duration.ZERO);
+        when(userRepository.existsById(1L)).thenReturn(true, false);
+
+        assertTrue(expiringGuard.exists(1L));
+        assertFalse(expiringGuard.exists(1L));
+        verify(userRepository, times(2)).existsById(1L);
+    }
+
+    @Test
+    void exists_whenUserCreated_skipRepository() {
+        userGuard.created(1L);
+
+        assertTrue(userGuard.exists(1L));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void checkExists_whenUserNotFound_returnNotFound() {
+        when(userRepository.existsById(1L)).thenReturn(false);
+
+        String message = assertThrows(ResponseStatusException.class,
+                () -> userGuard.checkExists(1L, "Пользователь не найден.")).getMessage();
+
+        assertEquals("404 NOT_FOUND \"Пользователь не найден.\"", message);
+    }
+
+    @Test
+    void delete_whenUserKnown_forgetUser() {
+        userGuard.created(1L);
+
+        userGuard.delete(1L, () -> userRepository.deleteById(1L));
+
+        assertFalse(userGuard.exists(1L));
+        verify(userRepository).deleteById(1L);
+        verify(userRepository).existsById(1L);
+    }
+
+    @Test
+    void exists_whenUserDeletedDuringCheck_notRememberUser() {
+        when(userRepository.existsById(1L))
+                .thenAnswer(invocation -> {
+                    userGuard.delete(1L, () -> { });
+                    return true;
+                })
+                .thenReturn(false);
+
+        assertTrue(userGuard.exists(1L));
+        assertFalse(userGuard.exists(1L));
+        verify(userRepository, times(2)).existsById(1L);
+    }
+}
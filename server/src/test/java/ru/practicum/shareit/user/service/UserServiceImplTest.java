@@ -9,9 +9,17 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.web.server.ResponseStatusException;
+import ru.practicum.shareit.booking.service.BookingIntervalIndex;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemSearchIndex;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.RequestRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
@@ -19,6 +27,9 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -26,6 +37,20 @@ import static org.mockito.Mockito.when;
 class UserServiceImplTest {
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private UserGuard userGuard;
+    @Mock
+    private ItemSearchIndex itemSearchIndex;
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+    @Mock
+    private Cache cache;
+    @Mock
+    private ItemRepository itemRepository;
+    @Mock
+    private RequestRepository requestRepository;
     @InjectMocks
     private UserServiceImpl userService;
     private User user;
@@ -132,7 +157,22 @@ class UserServiceImplTest {
 
     @Test
     void delete() {
+        when(itemRepository.findIdsByOwnerId(1L)).thenReturn(List.of(2L, 3L));
+        when(requestRepository.findIdsByRequestorId(1L)).thenReturn(List.of(4L));
+        when(entityManagerFactory.getCache()).thenReturn(cache);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return null;
+        }).when(userGuard).delete(eq(1L), any());
+
         userService.delete(1L);
         verify(userRepository).deleteById(1L);
+        verify(cache).evict(Item.class, 2L);
+        verify(cache).evict(Item.class, 3L);
+        verify(cache).evict(ItemRequest.class, 4L);
+        verify(cache, never()).evict(Item.class);
+        verify(cache, never()).evict(ItemRequest.class);
+        verify(itemSearchIndex).removeOwner(1L);
+        verify(bookingIntervalIndex).clear();
     }
 }
\ No newline at end of file
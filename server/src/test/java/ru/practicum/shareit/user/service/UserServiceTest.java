@@ -2,31 +2,51 @@ package ru.practicum.shareit.user.service;
 
 import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.BeforeEach;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.service.BookingIntervalIndex;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.repository.RequestRepository;
+import ru.practicum.shareit.item.service.ItemSearchIndex;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
 import java.util.Collection;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @Transactional
 @SpringBootTest(
-        properties = "db.name=test",
+        properties = {"db.name=test", "spring.jpa.properties.hibernate.generate_statistics=true"},
         webEnvironment = SpringBootTest.WebEnvironment.NONE)
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 class UserServiceTest {
     private UserService userService;
     private final UserRepository userRepository;
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemRepository itemRepository;
+    private final RequestRepository requestRepository;
+    private final EntityManagerFactory entityManagerFactory;
+    private final UserGuard userGuard;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final PlatformTransactionManager transactionManager;
     private final User user1 = new User();
     private final User updateUser = new User();
 
     @BeforeEach
     void setUp() {
-        userService = new UserServiceImpl(userRepository);
+        userService = new UserServiceImpl(userRepository, itemSearchIndex, entityManagerFactory, userGuard,
+                bookingIntervalIndex, itemRepository, requestRepository);
         user1.setName("name1");
         user1.setEmail("name1@mail.ru");
     }
@@ -91,4 +111,56 @@ class UserServiceTest {
         assertTrue(users.contains(updateUser));
         assertFalse(users.contains(user1));
     }
-}
\ No newline at end of file
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void getById_whenUserCreated_readUserFromSecondLevelCache() {
+        userService.create(user1);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        try {
+            userService.getById(user1.getId());
+            statistics.clear();
+            userService.getById(user1.getId());
+            userService.getById(user1.getId());
+
+            assertEquals(0, statistics.getPrepareStatementCount());
+            assertEquals(2, statistics.getDomainDataRegionStatistics("users").getHitCount());
+        } finally {
+            userService.delete(user1.getId());
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void delete_whenOwnerHasCachedItems_evictOnlyOwnerItems() {
+        userService.create(user1);
+        updateUser.setName("otherName");
+        updateUser.setEmail("other@mail.ru");
+        userService.create(updateUser);
+        Item item = saveItem(user1);
+        Item otherItem = saveItem(updateUser);
+        itemRepository.findById(item.getId());
+        itemRepository.findById(otherItem.getId());
+        Cache cache = entityManagerFactory.getCache();
+        assertTrue(cache.contains(Item.class, item.getId()));
+
+        try {
+            userService.delete(user1.getId());
+
+            assertFalse(cache.contains(Item.class, item.getId()));
+            assertTrue(cache.contains(Item.class, otherItem.getId()));
+            assertTrue(itemRepository.findById(item.getId()).isEmpty());
+        } finally {
+            userService.delete(updateUser.getId());
+        }
+    }
+
+    private Item saveItem(User owner) {
+        return new TransactionTemplate(transactionManager).execute(status -> itemRepository.save(Item.builder()
+                .name("itemName")
+                .description("itemDescription")
+                .available(true)
+                .owner(userRepository.getReferenceById(owner.getId()))
+                .build()));
+    }
+}